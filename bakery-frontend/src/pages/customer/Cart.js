@@ -151,6 +151,8 @@ const Cart = () => {
 
   const calculateTotal = () => {
     if (!cart?.items) return 0;
+    // The server keeps the cart total; fall back to adding up lines for older responses
+    if (cart.summary) return cart.summary.total;
     return cart.items.reduce((total, cartItem) => total + (getItemPrice(cartItem) * cartItem.quantity), 0);
   };
 
@@ -78,6 +78,8 @@ const Checkout = () => {
 
   const calculateTotal = () => {
     if (!cart?.items) return 0;
+    // The server keeps the cart total; fall back to adding up lines for older responses
+    if (cart.summary) return cart.summary.total;
     return cart.items.reduce((total, item) => {
       // Use stored price if available (for cakes with weight pricing)
       let itemPrice = item.priceAtAddition && item.priceAtAddition > 0
@@ -29,7 +29,7 @@ import {
   Person,
   Cake,
 } from '@mui/icons-material';
-import { itemAPI, cartAPI, reviewAPI } from '../../services/api';
+import { itemAPI, cartAPI, guestCartAPI, reviewAPI } from '../../services/api';
 import { useAuth } from '../../context/AuthContext';
 import CustomerHeader from '../../components/CustomerHeader';
 import { showSuccess, showError } from '../../utils/toast';
@@ -88,11 +88,6 @@ const ItemDetail = () => {
   };
 
   const handleAddToCart = async () => {
-    if (!user) {
-      navigate('/login');
-      return;
-    }
-
     try {
       const cartItemData = {
         itemId: item.id,
@@ -108,6 +103,13 @@ const ItemDetail = () => {
         cartItemData.quantity = quantity;  // For non-cakes, use actual quantity
       }
       
+      if (!user) {
+        // Kept in a guest cart and moved into the customer's cart on login
+        await guestCartAPI.addItem(cartItemData);
+        showSuccess(`${item.name} added to cart! Log in to check out.`);
+        return;
+      }
+      
       await cartAPI.addItem(user.id, cartItemData);
       showSuccess(`${item.name} added to cart!`);
       navigate('/cart');
@@ -581,14 +583,14 @@ const ItemDetail = () => {
                         }
                       }}
                     >
-                      {!user ? 'Login to Purchase' : getCurrentStock() === 0 || !item.available ? 'Out of Stock' : 'Add to Cart'}
+                      {getCurrentStock() === 0 || !item.available ? 'Out of Stock' : 'Add to Cart'}
                     </Button>
                   </Box>
                   
                   {!user && (
                     <Box sx={{ marginTop: { xs: '2.5px', md: '6px' }, padding: { xs: '2.5px', md: '6px' }, background: '#fff3e0', borderRadius: '0', textAlign: 'center' }}>
                       <Typography variant="body2" color="textSecondary" sx={{ fontSize: { xs: '0.58rem', md: '0.75rem' } }}>
-                        Please login to add items to cart and make purchases
+                        Items you add are kept in your cart - login to check out
                       </Typography>
                     </Box>
                   )}
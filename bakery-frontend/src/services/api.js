@@ -9,6 +9,7 @@ const API_BASE_URL ='http://localhost:8080/api';
 
 const api = axios.create({
   baseURL: API_BASE_URL,
+  withCredentials: true,  // Sends the guest cart cookie
   headers: {
     'Content-Type': 'application/json',
   },
@@ -105,6 +106,15 @@ export const cartAPI = {
   addItem: (customerId, data) => api.post(`/cart/add?customerId=${customerId}`, data),
   updateItem: (cartItemId, quantity) => api.put(`/cart/update/${cartItemId}?quantity=${quantity}`),
   removeItem: (cartItemId) => api.delete(`/cart/remove/${cartItemId}`),
+  batch: (customerId, operations) => api.post(`/cart/batch?customerId=${customerId}`, { operations }),
+};
+
+// Guest cart APIs (no login; the cart is tied to a cookie and merged into the customer cart on login)
+export const guestCartAPI = {
+  get: () => api.get('/guest-cart'),
+  addItem: (data) => api.post('/guest-cart/add', data),
+  updateItem: (lineId, quantity) => api.put(`/guest-cart/update/${lineId}?quantity=${quantity}`),
+  removeItem: (lineId) => api.delete(`/guest-cart/remove/${lineId}`),
 };
 
 // Review APIs
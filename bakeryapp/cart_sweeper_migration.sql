@@ -0,0 +1,13 @@
+-- Migration script for the cart sweeper
+-- updated_at is when the customer last changed the cart; carts idle for
+-- cart.sweep.idle-days (default 30) are emptied. version guards the running totals
+-- against concurrent writers (cart requests, the sweeper, repricing).
+
+ALTER TABLE carts
+    ADD COLUMN updated_at DATETIME NULL,
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- Existing carts start their idle period now
+UPDATE carts SET updated_at = NOW();
+
+CREATE INDEX idx_carts_updated_at ON carts (updated_at);
@@ -0,0 +1,27 @@
+-- Migration script to add running totals to carts
+-- CartService moves these on every cart change; checkout charges subtotal + surcharge.
+-- Amounts are in paise; the surcharge is the ₹30 eggless surcharge per unit.
+
+ALTER TABLE carts
+    ADD COLUMN subtotal_paise BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN surcharge_paise BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN line_count INT NOT NULL DEFAULT 0,
+    ADD COLUMN item_count INT NOT NULL DEFAULT 0;
+
+-- Lines added before prices were computed server-side may have no price yet
+UPDATE cart_items ci JOIN items i ON i.id = ci.item_id
+SET ci.price_at_addition = i.price + CASE WHEN ci.egg_type = 'EGGLESS' THEN 30 ELSE 0 END
+WHERE ci.price_at_addition IS NULL OR ci.price_at_addition = 0;
+
+UPDATE carts c JOIN (
+    SELECT cart_id,
+           SUM(ROUND(price_at_addition * 100) * quantity) AS total,
+           SUM(CASE WHEN egg_type = 'EGGLESS' THEN 3000 * quantity ELSE 0 END) AS surcharge,
+           SUM(quantity) AS items,
+           COUNT(*) AS line_total
+    FROM cart_items GROUP BY cart_id
+) d ON d.cart_id = c.id
+SET c.subtotal_paise = d.total - d.surcharge,
+    c.surcharge_paise = d.surcharge,
+    c.line_count = d.line_total,
+    c.item_count = d.items;
@@ -0,0 +1,4 @@
+-- Migration script to add a per-item low-stock threshold
+-- NULL uses inventory.low-stock.threshold (default 10)
+
+ALTER TABLE items ADD COLUMN low_stock_threshold INT NULL;
@@ -0,0 +1,9 @@
+-- Migration script to index order_items by item
+-- Item deletion checks for active orders by item_id; without this index the
+-- check scans every order line.
+
+CREATE INDEX idx_order_items_item_id ON order_items (item_id);
+
+-- MySQL already creates an index for the item_id foreign key on some setups.
+-- Check before running if the statement above fails with a duplicate key name:
+-- SHOW INDEX FROM order_items WHERE Column_name = 'item_id';
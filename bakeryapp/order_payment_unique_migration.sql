@@ -0,0 +1,8 @@
+-- Migration script for idempotent order placement
+-- At most one order per Razorpay payment id. A retried POST /api/orders/place/{customerId}
+-- returns the order already placed for that payment instead of creating a second one.
+
+-- Duplicates must be resolved by hand before the index can be created; list them with:
+-- SELECT payment_id, COUNT(*) FROM orders WHERE payment_id IS NOT NULL GROUP BY payment_id HAVING COUNT(*) > 1;
+
+ALTER TABLE orders ADD CONSTRAINT uk_orders_payment_id UNIQUE (payment_id);
@@ -0,0 +1,18 @@
+-- Migration script for the email outbox
+-- Order emails are written here in the order's transaction and sent by OutboxDispatcher.
+-- Requires MySQL 8.0+ (the dispatcher claims rows with FOR UPDATE SKIP LOCKED).
+
+CREATE TABLE IF NOT EXISTS outbox_messages (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    body LONGTEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(1000),
+    created_at DATETIME(6) NOT NULL,
+    sent_at DATETIME(6),
+    INDEX idx_outbox_messages_due (status, next_attempt_at)
+);
@@ -0,0 +1,20 @@
+-- Migration script for pooled order ids
+-- orders, order_items and order_history_items now take their ids from id_generators,
+-- 50 at a time, instead of AUTO_INCREMENT, so Hibernate can batch their inserts.
+-- Run BEFORE deploying: the seeds must start above the existing ids.
+
+CREATE TABLE IF NOT EXISTS id_generators (
+    name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val BIGINT
+);
+
+-- Each seed clears a full allocation block past the current maximum id
+INSERT INTO id_generators (name, next_val)
+SELECT 'orders', COALESCE(MAX(id), 0) + 100 FROM orders;
+INSERT INTO id_generators (name, next_val)
+SELECT 'order_items', COALESCE(MAX(id), 0) + 100 FROM order_items;
+INSERT INTO id_generators (name, next_val)
+SELECT 'order_history_items', COALESCE(MAX(id), 0) + 100 FROM order_history_items;
+
+-- For statement batching to reach MySQL as multi-row inserts, add
+-- rewriteBatchedStatements=true to spring.datasource.url.
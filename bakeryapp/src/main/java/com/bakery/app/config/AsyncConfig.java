@@ -0,0 +1,29 @@
+package com.bakery.app.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    public static final String OUTBOX_EXECUTOR = "outboxExecutor";
+
+    /**
+     * Drains the outbox right after a commit queues mail, instead of waiting for the next poll.
+     * One thread and one queued run are enough: a queued run picks up everything committed
+     * before it starts, so further requests are discarded.
+     */
+    @Bean(name = OUTBOX_EXECUTOR)
+    public ThreadPoolTaskExecutor outboxExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("outbox-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        return executor;
+    }
+}
@@ -26,7 +26,7 @@ public class CorsConfig {
         config.addAllowedMethod("*");
         
         // Expose headers
-        config.setExposedHeaders(Arrays.asList("Authorization"));
+        config.setExposedHeaders(Arrays.asList("Authorization", "ETag"));
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
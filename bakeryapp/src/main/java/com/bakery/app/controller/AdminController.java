@@ -3,16 +3,29 @@ package com.bakery.app.controller;
 import com.bakery.app.dto.ApiResponse;
 import com.bakery.app.dto.AuthResponse;
 import com.bakery.app.dto.CustomerRegistrationRequest;
+import com.bakery.app.dto.ItemIdsRequest;
 import com.bakery.app.dto.LoginRequest;
+import com.bakery.app.dto.StockAdjustmentRequest;
+import com.bakery.app.dto.StockAdjustmentResult;
 import com.bakery.app.entity.Admin;
 import com.bakery.app.service.AdminService;
+import com.bakery.app.service.CartSweeper;
+import com.bakery.app.service.ItemService;
+import com.bakery.app.service.LowStockMonitor;
+import com.bakery.app.service.StockJournalService;
 import com.bakery.app.util.JwtUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/admin")
 @RequiredArgsConstructor
@@ -20,6 +33,10 @@ import org.springframework.web.bind.annotation.*;
 public class AdminController {
     
     private final AdminService adminService;
+    private final ItemService itemService;
+    private final StockJournalService stockJournalService;
+    private final LowStockMonitor lowStockMonitor;
+    private final CartSweeper cartSweeper;
     private final JwtUtil jwtUtil;
     
     @PostMapping("/register")
@@ -66,4 +83,68 @@ public class AdminController {
                     .body(new ApiResponse(false, "Failed to retrieve dashboard statistics: " + e.getMessage()));
         }
     }
+    
+    @PostMapping("/items/delete")
+    public ResponseEntity<ApiResponse> deleteItems(@Valid @RequestBody ItemIdsRequest request) {
+        try {
+            itemService.deleteItems(request.getItemIds());
+            return ResponseEntity.ok(new ApiResponse(true, "Items deleted successfully"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/low-stock")
+    public ResponseEntity<ApiResponse> getLowStock() {
+        return ResponseEntity.ok(new ApiResponse(true, "Low stock variants retrieved successfully",
+                lowStockMonitor.lowStock()));
+    }
+    
+    @GetMapping("/cart-sweeper")
+    public ResponseEntity<ApiResponse> getCartSweeperStats() {
+        return ResponseEntity.ok(new ApiResponse(true, "Cart sweeper statistics retrieved successfully",
+                cartSweeper.stats()));
+    }
+    
+    @PostMapping("/items/stock")
+    public ResponseEntity<ApiResponse> adjustStock(@Valid @RequestBody StockAdjustmentRequest request) {
+        try {
+            List<StockAdjustmentResult> results = itemService.adjustStockBatch(request.getAdjustments());
+            long applied = results.stream().filter(StockAdjustmentResult::isSuccess).count();
+            return ResponseEntity.ok(new ApiResponse(applied == results.size(),
+                    applied + " of " + results.size() + " stock adjustments applied", results));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse(false, "Failed to adjust stock: " + e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/items/{id}/stock-at")
+    public ResponseEntity<ApiResponse> getStockAt(
+            @PathVariable Integer id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @RequestParam(required = false) String eggType,
+            @RequestParam(required = false) Double weight) {
+        try {
+            int stock = stockJournalService.stockAt(id, eggType, weight, at);
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("itemId", id);
+            data.put("variant", "EGGLESS".equals(eggType) ? "EGGLESS" : "REGULAR");
+            data.put("weight", weight);
+            data.put("at", at);
+            data.put("stock", stock);
+            return ResponseEntity.ok(new ApiResponse(true, "Historical stock retrieved successfully", data));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/items/{id}/stock-movements")
+    public ResponseEntity<ApiResponse> getStockMovements(@PathVariable Integer id,
+                                                         @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(new ApiResponse(true, "Stock movements retrieved successfully",
+                stockJournalService.recentMovements(id, limit)));
+    }
 }
@@ -2,7 +2,11 @@ package com.bakery.app.controller;
 
 import com.bakery.app.model.CarouselSlide;
 import com.bakery.app.service.CarouselSlideService;
+import com.bakery.app.service.CatalogVersion;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,15 +22,22 @@ public class CarouselSlideController {
     @Autowired
     private CarouselSlideService carouselSlideService;
     
+    @Autowired
+    private CatalogVersion catalogVersion;
+    
     // Get all slides (admin)
     @GetMapping("/all")
-    public ResponseEntity<Map<String, Object>> getAllSlides() {
+    public ResponseEntity<Map<String, Object>> getAllSlides(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         Map<String, Object> response = new HashMap<>();
         try {
             List<CarouselSlide> slides = carouselSlideService.getAllSlides();
             response.put("success", true);
             response.put("data", slides);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", e.getMessage());
@@ -36,13 +47,17 @@ public class CarouselSlideController {
     
     // Get active slides (public)
     @GetMapping("/active")
-    public ResponseEntity<Map<String, Object>> getActiveSlides() {
+    public ResponseEntity<Map<String, Object>> getActiveSlides(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         Map<String, Object> response = new HashMap<>();
         try {
             List<CarouselSlide> slides = carouselSlideService.getActiveSlides();
             response.put("success", true);
             response.put("data", slides);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", e.getMessage());
@@ -52,14 +67,19 @@ public class CarouselSlideController {
     
     // Get slide by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getSlideById(@PathVariable Long id) {
+    public ResponseEntity<Map<String, Object>> getSlideById(@PathVariable Long id,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         Map<String, Object> response = new HashMap<>();
         try {
             CarouselSlide slide = carouselSlideService.getSlideById(id)
                     .orElseThrow(() -> new RuntimeException("Carousel slide not found"));
             response.put("success", true);
             response.put("data", slide);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", e.getMessage());
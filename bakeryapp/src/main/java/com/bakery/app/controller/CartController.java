@@ -1,9 +1,12 @@
 package com.bakery.app.controller;
 
 import com.bakery.app.dto.ApiResponse;
+import com.bakery.app.dto.CartBatchRequest;
 import com.bakery.app.dto.CartItemRequest;
+import com.bakery.app.dto.CartSummary;
 import com.bakery.app.entity.Cart;
 import com.bakery.app.service.CartService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -29,6 +32,18 @@ public class CartController {
         }
     }
     
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse> applyBatch(@RequestParam Integer customerId,
+                                                  @Valid @RequestBody CartBatchRequest request) {
+        try {
+            Cart cart = cartService.applyBatch(customerId, request.getOperations());
+            return ResponseEntity.ok(new ApiResponse(true, request.getOperations().size() + " cart operations applied", cart));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+    
     @GetMapping("/{customerId}")
     public ResponseEntity<ApiResponse> getCart(@PathVariable Integer customerId) {
         try {
@@ -43,6 +58,18 @@ public class CartController {
         }
     }
     
+    @GetMapping("/{customerId}/summary")
+    public ResponseEntity<ApiResponse> getSummary(@PathVariable Integer customerId,
+                                                  @RequestParam(required = false) String coupon) {
+        try {
+            CartSummary summary = cartService.getSummary(customerId, coupon);
+            return ResponseEntity.ok(new ApiResponse(true, "Cart summary retrieved successfully", summary));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+    
     @PutMapping("/update/{cartItemId}")
     public ResponseEntity<ApiResponse> updateCartItem(@PathVariable Integer cartItemId,
                                                       @RequestParam Integer quantity) {
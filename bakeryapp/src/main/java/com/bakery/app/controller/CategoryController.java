@@ -3,14 +3,16 @@ package com.bakery.app.controller;
 import com.bakery.app.dto.ApiResponse;
 import com.bakery.app.dto.CategoryRequest;
 import com.bakery.app.entity.Category;
+import com.bakery.app.service.CatalogResponseCache;
+import com.bakery.app.service.CatalogVersion;
 import com.bakery.app.service.CategoryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/categories")
 @RequiredArgsConstructor
@@ -18,6 +20,8 @@ import java.util.List;
 public class CategoryController {
     
     private final CategoryService categoryService;
+    private final CatalogVersion catalogVersion;
+    private final CatalogResponseCache responseCache;
     
     @PostMapping
     public ResponseEntity<ApiResponse> createCategory(@RequestBody CategoryRequest request) {
@@ -32,16 +36,27 @@ public class CategoryController {
     }
     
     @GetMapping
-    public ResponseEntity<ApiResponse> getAllCategories() {
-        List<Category> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(new ApiResponse(true, "Categories retrieved successfully", categories));
+    public ResponseEntity<byte[]> getAllCategories(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return responseCache.respond("categories", acceptEncoding,
+                () -> new ApiResponse(true, "Categories retrieved successfully", categoryService.getAllCategories()));
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse> getCategoryById(@PathVariable Integer id) {
+    public ResponseEntity<ApiResponse> getCategoryById(@PathVariable Integer id,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         try {
             Category category = categoryService.getCategoryById(id);
-            return ResponseEntity.ok(new ApiResponse(true, "Category retrieved successfully", category));
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                    .body(new ApiResponse(true, "Category retrieved successfully", category));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new ApiResponse(false, e.getMessage()));
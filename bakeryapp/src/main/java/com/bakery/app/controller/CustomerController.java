@@ -10,11 +10,13 @@ import com.bakery.app.dto.NotificationDTO;
 import com.bakery.app.entity.Customer;
 import com.bakery.app.service.CustomerService;
 import com.bakery.app.service.EmailService;
+import com.bakery.app.service.GuestCartService;
 import com.bakery.app.service.NotificationService;
 import com.bakery.app.service.PasswordResetService;
 import com.bakery.app.util.JwtUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -33,9 +35,11 @@ public class CustomerController {
     private final PasswordResetService passwordResetService;
     private final NotificationService notificationService;
     private final EmailService emailService;
+    private final GuestCartService guestCartService;
     
     @PostMapping("/register")
-    public ResponseEntity<ApiResponse> registerCustomer(@Valid @RequestBody CustomerRegistrationRequest request) {
+    public ResponseEntity<ApiResponse> registerCustomer(@Valid @RequestBody CustomerRegistrationRequest request,
+                                                        @CookieValue(name = GuestCartService.COOKIE, required = false) String guestCart) {
         try {
             Customer customer = customerService.registerCustomer(request);
             String token = jwtUtil.generateToken(customer.getEmail(), "CUSTOMER", customer.getId());
@@ -63,7 +67,10 @@ public class CustomerController {
                 System.err.println("Failed to send welcome email: " + emailError.getMessage());
             }
             
+            mergeGuestCart(customer.getId(), guestCart);
+            
             return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(HttpHeaders.SET_COOKIE, guestCartService.expiredCookie().toString())
                     .body(new ApiResponse(true, "Customer registered successfully", authResponse));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -72,13 +79,17 @@ public class CustomerController {
     }
     
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse> loginCustomer(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<ApiResponse> loginCustomer(@Valid @RequestBody LoginRequest request,
+                                                     @CookieValue(name = GuestCartService.COOKIE, required = false) String guestCart) {
         try {
             Customer customer = customerService.loginCustomer(request);
             String token = jwtUtil.generateToken(customer.getEmail(), "CUSTOMER", customer.getId());
             AuthResponse authResponse = new AuthResponse(token, customer.getId(), customer.getName(), 
                                                          customer.getEmail(), customer.getPhone(), "CUSTOMER");
-            return ResponseEntity.ok(new ApiResponse(true, "Login successful", authResponse));
+            mergeGuestCart(customer.getId(), guestCart);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, guestCartService.expiredCookie().toString())
+                    .body(new ApiResponse(true, "Login successful", authResponse));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new ApiResponse(false, e.getMessage()));
@@ -156,4 +167,18 @@ public class CustomerController {
                     .body(new ApiResponse(false, e.getMessage(), null));
         }
     }
+    
+    /**
+     * Moves a shopper's guest cart into their customer cart; never fails the login itself.
+     */
+    private void mergeGuestCart(Integer customerId, String guestCart) {
+        if (guestCart == null) {
+            return;
+        }
+        try {
+            guestCartService.mergeInto(customerId, guestCartService.idFrom(guestCart));
+        } catch (Exception e) {
+            System.err.println("Failed to merge guest cart: " + e.getMessage());
+        }
+    }
 }
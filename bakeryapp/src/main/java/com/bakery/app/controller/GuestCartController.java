@@ -0,0 +1,84 @@
+package com.bakery.app.controller;
+
+import com.bakery.app.dto.ApiResponse;
+import com.bakery.app.dto.CartItemRequest;
+import com.bakery.app.dto.GuestCartResponse;
+import com.bakery.app.service.GuestCartService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Cart endpoints for shoppers who are not logged in. The cart is identified by the
+ * signed {@value GuestCartService#COOKIE} cookie, which is (re)issued on every change.
+ */
+@RestController
+@RequestMapping("/api/guest-cart")
+@RequiredArgsConstructor
+public class GuestCartController {
+
+    private final GuestCartService guestCartService;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse> getCart(@CookieValue(name = GuestCartService.COOKIE, required = false) String cookie) {
+        GuestCartResponse cart = guestCartService.getCart(guestCartService.idFrom(cookie));
+        return ResponseEntity.ok(new ApiResponse(true, "Cart retrieved successfully", cart));
+    }
+
+    @PostMapping("/add")
+    public ResponseEntity<ApiResponse> addItem(@CookieValue(name = GuestCartService.COOKIE, required = false) String cookie,
+                                               @RequestBody CartItemRequest request) {
+        String id = guestCartService.idFrom(cookie);
+        if (id == null) {
+            id = guestCartService.newId();
+        }
+        try {
+            GuestCartResponse cart = guestCartService.addItem(id, request);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, guestCartService.cookie(id).toString())
+                    .body(new ApiResponse(true, "Item added to cart successfully", cart));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @PutMapping("/update/{lineId}")
+    public ResponseEntity<ApiResponse> updateItem(@CookieValue(name = GuestCartService.COOKIE, required = false) String cookie,
+                                                  @PathVariable Integer lineId,
+                                                  @RequestParam Integer quantity) {
+        String id = guestCartService.idFrom(cookie);
+        try {
+            if (id == null) {
+                throw new RuntimeException("Cart item not found with id: " + lineId);
+            }
+            GuestCartResponse cart = guestCartService.updateItem(id, lineId, quantity);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, guestCartService.cookie(id).toString())
+                    .body(new ApiResponse(true, "Cart item updated successfully", cart));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/remove/{lineId}")
+    public ResponseEntity<ApiResponse> removeItem(@CookieValue(name = GuestCartService.COOKIE, required = false) String cookie,
+                                                  @PathVariable Integer lineId) {
+        String id = guestCartService.idFrom(cookie);
+        try {
+            if (id == null) {
+                throw new RuntimeException("Cart item not found with id: " + lineId);
+            }
+            GuestCartResponse cart = guestCartService.removeItem(id, lineId);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, guestCartService.cookie(id).toString())
+                    .body(new ApiResponse(true, "Cart item removed successfully", cart));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package com.bakery.app.controller;
 
 import com.bakery.app.dto.ApiResponse;
+import com.bakery.app.dto.CursorPage;
+import com.bakery.app.dto.ItemFilterRequest;
+import com.bakery.app.dto.ItemFilterResponse;
 import com.bakery.app.dto.ItemRequest;
+import com.bakery.app.dto.ItemSummary;
+import com.bakery.app.dto.Suggestion;
 import com.bakery.app.entity.Item;
+import com.bakery.app.service.CatalogResponseCache;
+import com.bakery.app.service.CatalogVersion;
 import com.bakery.app.service.ItemService;
+import com.bakery.app.service.ItemSuggestService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +29,9 @@ import java.util.List;
 public class ItemController {
     
     private final ItemService itemService;
+    private final CatalogVersion catalogVersion;
+    private final CatalogResponseCache responseCache;
+    private final ItemSuggestService itemSuggestService;
     
     @PostMapping
     public ResponseEntity<ApiResponse> createItem(@Valid @RequestBody ItemRequest request) {
@@ -33,16 +46,27 @@ public class ItemController {
     }
     
     @GetMapping
-    public ResponseEntity<ApiResponse> getAllItems() {
-        List<Item> items = itemService.getAllItems();
-        return ResponseEntity.ok(new ApiResponse(true, "Items retrieved successfully", items));
+    public ResponseEntity<byte[]> getAllItems(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return responseCache.respond("items", acceptEncoding,
+                () -> new ApiResponse(true, "Items retrieved successfully", itemService.getAllItems()));
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse> getItemById(@PathVariable Integer id) {
+    public ResponseEntity<ApiResponse> getItemById(@PathVariable Integer id,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         try {
             Item item = itemService.getItemById(id);
-            return ResponseEntity.ok(new ApiResponse(true, "Item retrieved successfully", item));
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                    .body(new ApiResponse(true, "Item retrieved successfully", item));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new ApiResponse(false, e.getMessage()));
@@ -50,9 +74,42 @@ public class ItemController {
     }
     
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<ApiResponse> getItemsByCategory(@PathVariable Integer categoryId) {
+    public ResponseEntity<ApiResponse> getItemsByCategory(@PathVariable Integer categoryId,
+                                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         List<Item> items = itemService.getItemsByCategory(categoryId);
-        return ResponseEntity.ok(new ApiResponse(true, "Items retrieved successfully", items));
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                .body(new ApiResponse(true, "Items retrieved successfully", items));
+    }
+    
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse> getItemPage(@RequestParam(required = false) Integer after,
+                                                   @RequestParam(defaultValue = "20") Integer limit,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        CursorPage<ItemSummary> page = itemService.getItemSummaries(null, after, limit);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                .body(new ApiResponse(true, "Items retrieved successfully", page));
+    }
+    
+    @GetMapping("/category/{categoryId}/page")
+    public ResponseEntity<ApiResponse> getItemPageByCategory(@PathVariable Integer categoryId,
+                                                             @RequestParam(required = false) Integer after,
+                                                             @RequestParam(defaultValue = "20") Integer limit,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        CursorPage<ItemSummary> page = itemService.getItemSummaries(categoryId, after, limit);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                .body(new ApiResponse(true, "Items retrieved successfully", page));
     }
     
     @PutMapping("/{id}")
@@ -79,9 +136,26 @@ public class ItemController {
     }
     
     @GetMapping("/featured")
-    public ResponseEntity<ApiResponse> getFeaturedItems() {
-        List<Item> items = itemService.getFeaturedItems();
-        return ResponseEntity.ok(new ApiResponse(true, "Featured items retrieved successfully", items));
+    public ResponseEntity<byte[]> getFeaturedItems(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return responseCache.respond("items:featured", acceptEncoding,
+                () -> new ApiResponse(true, "Featured items retrieved successfully", itemService.getFeaturedItems()));
+    }
+    
+    @GetMapping("/filter")
+    public ResponseEntity<ApiResponse> filterItems(ItemFilterRequest request,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ItemFilterResponse result = itemService.filterItems(request);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                .body(new ApiResponse(true, "Filtered items retrieved successfully", result));
     }
     
     @GetMapping("/search")
@@ -90,35 +164,24 @@ public class ItemController {
         return ResponseEntity.ok(new ApiResponse(true, "Search results retrieved successfully", items));
     }
     
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse> suggest(@RequestParam String prefix,
+                                               @RequestParam(defaultValue = "8") int limit) {
+        List<Suggestion> suggestions = itemSuggestService.suggest(prefix, limit);
+        return ResponseEntity.ok(new ApiResponse(true, "Suggestions retrieved successfully", suggestions));
+    }
+    
     @PatchMapping("/{id}/stock")
     public ResponseEntity<ApiResponse> updateStock(@PathVariable Integer id, 
                                                    @RequestParam Integer quantity,
                                                    @RequestParam(defaultValue = "add") String operation) {
+        if (!"add".equalsIgnoreCase(operation) && !"set".equalsIgnoreCase(operation)
+                && !"subtract".equalsIgnoreCase(operation)) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, "Invalid operation. Use 'add', 'set', or 'subtract'"));
+        }
         try {
-            Item item = itemService.getItemById(id);
-            int newStock;
-            
-            if ("add".equalsIgnoreCase(operation)) {
-                newStock = item.getStock() + quantity;
-            } else if ("set".equalsIgnoreCase(operation)) {
-                newStock = quantity;
-            } else if ("subtract".equalsIgnoreCase(operation)) {
-                newStock = item.getStock() - quantity;
-            } else {
-                return ResponseEntity.badRequest()
-                        .body(new ApiResponse(false, "Invalid operation. Use 'add', 'set', or 'subtract'"));
-            }
-            
-            if (newStock < 0) {
-                return ResponseEntity.badRequest()
-                        .body(new ApiResponse(false, "Stock cannot be negative"));
-            }
-            
-            ItemRequest request = convertItemToRequest(item);
-            request.setStock(newStock);
-            request.setAvailable(newStock > 0);
-            
-            Item updatedItem = itemService.updateItem(id, request);
+            Item updatedItem = itemService.adjustStock(id, operation, quantity);
             return ResponseEntity.ok(new ApiResponse(true, "Stock updated successfully", updatedItem));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -127,11 +190,12 @@ public class ItemController {
     }
     
     @GetMapping("/low-stock")
-    public ResponseEntity<ApiResponse> getLowStockItems(@RequestParam(defaultValue = "10") Integer threshold) {
+    public ResponseEntity<ApiResponse> getLowStockItems(@RequestParam(required = false) Integer threshold) {
         try {
-            List<Item> items = itemService.getAllItems().stream()
-                    .filter(item -> item.getStock() <= threshold)
-                    .toList();
+            // Without a threshold, serve the alert engine's precomputed list
+            List<Item> items = threshold != null
+                    ? itemService.getLowStockItems(threshold)
+                    : itemService.getAlertedItems();
             return ResponseEntity.ok(new ApiResponse(true, "Low stock items retrieved successfully", items));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -142,27 +206,11 @@ public class ItemController {
     @GetMapping("/out-of-stock")
     public ResponseEntity<ApiResponse> getOutOfStockItems() {
         try {
-            List<Item> items = itemService.getAllItems().stream()
-                    .filter(item -> item.getStock() == 0)
-                    .toList();
+            List<Item> items = itemService.getLowStockItems(0);
             return ResponseEntity.ok(new ApiResponse(true, "Out of stock items retrieved successfully", items));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new ApiResponse(false, e.getMessage()));
         }
     }
-    
-    private ItemRequest convertItemToRequest(Item item) {
-        ItemRequest request = new ItemRequest();
-        request.setName(item.getName());
-        request.setDescription(item.getDescription());
-        request.setPrice(item.getPrice());
-        request.setGrams(item.getGrams());
-        request.setImageUrl(item.getImageUrl());
-        request.setCategoryId(item.getCategory().getId());
-        request.setStock(item.getStock());
-        request.setFeatured(item.getFeatured());
-        request.setAvailable(item.getAvailable());
-        return request;
-    }
 }
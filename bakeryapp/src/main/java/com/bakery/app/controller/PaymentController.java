@@ -4,13 +4,17 @@ import com.razorpay.Order;
 import com.razorpay.RazorpayClient;
 import com.razorpay.RazorpayException;
 import com.razorpay.Utils;
+import com.bakery.app.service.StockReservationService;
 import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -23,6 +27,9 @@ public class PaymentController {
     @Value("${razorpay.key.secret}")
     private String razorpayKeySecret;
 
+    @Autowired
+    private StockReservationService stockReservationService;
+
     /**
      * Create Razorpay order
      */
@@ -51,8 +58,29 @@ public class PaymentController {
             notes.put("order_type", "bakery_order");
             orderRequest.put("notes", notes);
             
-            // Create order on Razorpay
-            Order order = razorpayClient.orders.create(orderRequest);
+            // Hold the cart's stock until the payment completes, fails or times out. Taken before
+            // the Razorpay order exists, so an out-of-stock cart never creates one
+            String holdId = "hold_" + UUID.randomUUID();
+            try {
+                stockReservationService.reserveCart(holdId, customerId);
+            } catch (RuntimeException e) {
+                return stockConflict(e);
+            }
+            
+            // Create order on Razorpay, then file the hold under its id
+            Order order;
+            try {
+                order = razorpayClient.orders.create(orderRequest);
+            } catch (RazorpayException e) {
+                stockReservationService.release(holdId);
+                throw e;
+            }
+            try {
+                stockReservationService.rekey(holdId, order.get("id"));
+            } catch (RuntimeException e) {
+                stockReservationService.release(holdId);
+                return stockConflict(e);
+            }
             
             // Prepare response
             Map<String, Object> response = new HashMap<>();
@@ -82,6 +110,13 @@ public class PaymentController {
         }
     }
 
+    private ResponseEntity<?> stockConflict(RuntimeException e) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
     /**
      * Verify payment signature
      */
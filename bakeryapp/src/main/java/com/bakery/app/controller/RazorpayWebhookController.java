@@ -1,9 +1,11 @@
 package com.bakery.app.controller;
 
+import com.bakery.app.service.StockReservationService;
 import com.razorpay.Utils;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -29,6 +31,9 @@ public class RazorpayWebhookController {
     @Value("${razorpay.webhook.secret:}")
     private String webhookSecret;
 
+    @Autowired
+    private StockReservationService stockReservationService;
+
     /**
      * Razorpay Webhook Endpoint
      * Events: payment.authorized, payment.captured, payment.failed, order.paid, etc.
@@ -156,8 +161,11 @@ public class RazorpayWebhookController {
     private void handlePaymentFailed(String paymentId, String orderId, int amount) {
         logger.error("Payment Failed - Payment ID: {}, Order ID: {}, Amount: {}", 
                 paymentId, orderId, amount);
+        // Stock is only deducted when the order is placed; free the hold taken at checkout
+        if (!orderId.isEmpty()) {
+            stockReservationService.release(orderId);
+        }
         // TODO: Mark order as failed
-        // TODO: Restore inventory if stock was deducted
         // TODO: Send failure notification to customer
     }
 
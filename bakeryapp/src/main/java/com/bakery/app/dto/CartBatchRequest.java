@@ -0,0 +1,17 @@
+package com.bakery.app.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CartBatchRequest {
+    
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 100, message = "At most 100 cart operations can be processed at once")
+    private List<@Valid @NotNull CartOperation> operations;
+}
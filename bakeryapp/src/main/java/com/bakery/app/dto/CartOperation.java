@@ -0,0 +1,25 @@
+package com.bakery.app.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperation {
+    
+    @NotBlank(message = "Operation is required")
+    private String operation;  // "add", "update" or "remove"
+    
+    private Integer cartItemId;  // Line to update or remove
+    
+    private Integer itemId;  // Item to add
+    
+    private Integer quantity;  // Amount to add, or the new quantity for update (0 removes)
+    
+    private String eggType;  // "EGG", "EGGLESS", or null
+    
+    private Double selectedWeight;  // For cakes: 1.0, 1.5, 2.0, 2.5, 3.0 kg
+}
@@ -0,0 +1,30 @@
+package com.bakery.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cart totals in rupees. {@code total} is what checkout charges; the coupon fields are
+ * only filled in for a coupon preview.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartSummary {
+    
+    private Double subtotal;  // Line prices without the eggless surcharge
+    private Double egglessSurcharge;
+    private Double total;
+    private Integer lineCount;
+    private Integer itemCount;  // Sum of quantities, for the cart badge
+    private String couponCode;
+    private Double discount;
+    private Double payable;  // total - discount
+    
+    public static CartSummary of(long subtotalPaise, long surchargePaise, int lineCount, int itemCount) {
+        double total = (subtotalPaise + surchargePaise) / 100.0;
+        return new CartSummary(subtotalPaise / 100.0, surchargePaise / 100.0, total, lineCount, itemCount,
+                null, 0.0, total);
+    }
+}
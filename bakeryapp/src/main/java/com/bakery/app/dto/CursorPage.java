@@ -0,0 +1,16 @@
+package com.bakery.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private Integer nextCursor;  // Pass as "after" to fetch the next page, null on the last page
+    private boolean hasMore;
+}
@@ -0,0 +1,17 @@
+package com.bakery.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailMessage {
+    
+    private String to;
+    
+    private String subject;
+    
+    private String html;
+}
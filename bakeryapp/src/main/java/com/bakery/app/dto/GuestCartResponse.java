@@ -0,0 +1,20 @@
+package com.bakery.app.dto;
+
+import com.bakery.app.entity.CartItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A guest cart in the same shape as a customer cart, so the storefront renders both alike.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GuestCartResponse {
+    
+    private List<CartItem> items;
+    private CartSummary summary;
+}
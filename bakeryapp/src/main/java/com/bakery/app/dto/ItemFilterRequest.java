@@ -0,0 +1,19 @@
+package com.bakery.app.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Storefront filter, bound from query parameters. Null fields do not filter.
+ */
+@Data
+public class ItemFilterRequest {
+    private List<Integer> categoryId;  // Any of these categories
+    private Double minPrice;
+    private Double maxPrice;
+    private Boolean eggless;  // true: items offering an eggless variant, false: items without one
+    private List<Double> weight;  // Any of these cake weights in kg, e.g. 1.0, 1.5
+    private Boolean inStock;
+    private Integer limit;
+}
@@ -0,0 +1,19 @@
+package com.bakery.app.dto;
+
+import com.bakery.app.entity.Item;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemFilterResponse {
+    private List<Item> items;
+    private int total;  // Matches before the limit was applied
+    // facet name -> value -> number of items that would match if that value were selected
+    private Map<String, Map<String, Integer>> facets;
+}
@@ -0,0 +1,16 @@
+package com.bakery.app.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ItemIdsRequest {
+    
+    @NotEmpty(message = "At least one item id is required")
+    @Size(max = 500, message = "At most 500 items can be processed at once")
+    private List<@NotNull Integer> itemIds;
+}
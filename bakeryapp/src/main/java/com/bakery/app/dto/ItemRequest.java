@@ -47,6 +47,9 @@ public class ItemRequest {
     @Min(value = 0, message = "Eggless stock cannot be negative")
     private Integer egglessStock;
     
+    @Min(value = 0, message = "Low stock threshold cannot be negative")
+    private Integer lowStockThreshold;
+    
     private Boolean featured;
     
     private Boolean available;
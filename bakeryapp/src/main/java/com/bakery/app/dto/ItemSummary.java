@@ -0,0 +1,13 @@
+package com.bakery.app.dto;
+
+/**
+ * Slim list view of an item, loaded through a Spring Data interface projection.
+ */
+public interface ItemSummary {
+    Integer getId();
+    String getName();
+    Double getPrice();
+    String getImageUrl();
+    Boolean getAvailable();
+    Integer getCategoryId();
+}
@@ -0,0 +1,18 @@
+package com.bakery.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockAlert {
+    private Integer itemId;
+    private String itemName;
+    private String category;
+    private String eggType;  // REGULAR or EGGLESS
+    private Double weight;  // kg; null for the item's shared stock
+    private Integer stock;
+    private Integer threshold;
+}
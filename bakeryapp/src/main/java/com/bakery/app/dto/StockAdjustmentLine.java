@@ -0,0 +1,28 @@
+package com.bakery.app.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentLine {
+    
+    @NotNull(message = "Item id is required")
+    private Integer itemId;
+    
+    private String eggType;  // "EGGLESS" adjusts eggless stock, anything else regular stock
+    
+    private Double weight;  // kg; adjusts that size's own stock, creating it if needed. Null for shared stock
+    
+    @NotBlank(message = "Operation is required")
+    private String operation;  // "add", "subtract" or "set"
+    
+    @NotNull(message = "Quantity is required")
+    @Min(value = 0, message = "Quantity cannot be negative")
+    private Integer quantity;
+}
@@ -0,0 +1,17 @@
+package com.bakery.app.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class StockAdjustmentRequest {
+    
+    @NotEmpty(message = "At least one adjustment is required")
+    @Size(max = 500, message = "At most 500 adjustments can be processed at once")
+    private List<@Valid @NotNull StockAdjustmentLine> adjustments;
+}
@@ -0,0 +1,28 @@
+package com.bakery.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentResult {
+    private Integer itemId;
+    private String eggType;
+    private Double weight;
+    private String operation;
+    private boolean success;
+    private Integer newStock;  // null when the line was rejected
+    private String message;
+    
+    public static StockAdjustmentResult applied(StockAdjustmentLine line, int newStock) {
+        return new StockAdjustmentResult(line.getItemId(), line.getEggType(), line.getWeight(), line.getOperation(),
+                true, newStock, "Stock updated");
+    }
+    
+    public static StockAdjustmentResult rejected(StockAdjustmentLine line, String message) {
+        return new StockAdjustmentResult(line.getItemId(), line.getEggType(), line.getWeight(), line.getOperation(),
+                false, null, message);
+    }
+}
@@ -0,0 +1,53 @@
+package com.bakery.app.dto;
+
+import com.bakery.app.util.VariantKey;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockDeduction {
+    private Integer itemId;
+    private String eggType;  // "EGGLESS" deducts eggless stock, anything else regular stock
+    private Integer quantity;
+    private Double selectedWeight;  // kg; null draws from the item's shared stock
+
+    public StockDeduction(Integer itemId, String eggType, Integer quantity) {
+        this(itemId, eggType, quantity, null);
+    }
+
+    public boolean isEggless() {
+        return VariantKey.isEggless(eggType);
+    }
+
+    /**
+     * Packed key of the variant this line draws from, see {@link VariantKey}.
+     */
+    public long variantKey() {
+        return VariantKey.of(itemId, eggType, selectedWeight);
+    }
+
+    /**
+     * Sums lines per variant, ordered by item id.
+     */
+    public static List<StockDeduction> merge(List<StockDeduction> lines) {
+        Map<Long, StockDeduction> merged = new LinkedHashMap<>();
+        for (StockDeduction line : lines) {
+            String variant = line.isEggless() ? VariantKey.EGGLESS : null;
+            merged.merge(line.variantKey(),
+                    new StockDeduction(line.getItemId(), variant, line.getQuantity(), line.getSelectedWeight()),
+                    (a, b) -> new StockDeduction(a.getItemId(), variant, a.getQuantity() + b.getQuantity(), a.getSelectedWeight()));
+        }
+        List<StockDeduction> result = new ArrayList<>(merged.values());
+        result.sort(Comparator.comparing(StockDeduction::getItemId));
+        return result;
+    }
+}
@@ -0,0 +1,14 @@
+package com.bakery.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Suggestion {
+    private String text;
+    private String type;  // ITEM or CATEGORY
+    private Integer id;
+}
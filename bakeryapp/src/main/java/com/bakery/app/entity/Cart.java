@@ -1,11 +1,13 @@
 package com.bakery.app.entity;
 
+import com.bakery.app.dto.CartSummary;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,4 +28,41 @@ public class Cart {
     
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     private List<CartItem> items = new ArrayList<>();
+    
+    // Running totals, moved by every cart change (see CartService)
+    @JsonIgnore
+    @Column(name = "subtotal_paise", nullable = false)
+    private Long subtotalPaise = 0L;
+    
+    @JsonIgnore
+    @Column(name = "surcharge_paise", nullable = false)
+    private Long surchargePaise = 0L;
+    
+    @JsonIgnore
+    @Column(name = "line_count", nullable = false)
+    private Integer lineCount = 0;
+    
+    @JsonIgnore
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount = 0;
+    
+    // Last change by the customer; idle carts are emptied by CartSweeper
+    @JsonIgnore
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Checked by JPA writes; the JDBC total writers only bump it, so a stale cart fails to save
+    @JsonIgnore
+    @Version
+    private Long version = 0L;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onChange() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    public CartSummary getSummary() {
+        return CartSummary.of(subtotalPaise, surchargePaise, lineCount, itemCount);
+    }
 }
@@ -45,15 +45,19 @@ public class Item {
     
     private String imageUrl;
     
-    @Column(nullable = false)
+    // Stock columns are inserted with the item but afterwards only written by InventoryLedger
+    @Column(nullable = false, updatable = false)
     private Integer stock = 0;  // Available quantity
     
     @Column
     private Integer eggStock = 0;  // Stock for egg variant
     
-    @Column
+    @Column(updatable = false)
     private Integer egglessStock = 0;  // Stock for eggless variant
     
+    @Column(name = "low_stock_threshold")
+    private Integer lowStockThreshold;  // Alert at or below this; null uses the default
+    
     @Column(nullable = false)
     private Boolean featured = false;  // Featured product flag
     
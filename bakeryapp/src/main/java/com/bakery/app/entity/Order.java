@@ -10,13 +10,19 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", uniqueConstraints = {
+        // One order per Razorpay payment; makes a retried placement fail instead of duplicating
+        @UniqueConstraint(name = "uk_orders_payment_id", columnNames = "payment_id")
+})
 @Data
 @NoArgsConstructor
 public class Order {
     
+    // Pooled ids (50 per id_generators round trip) let Hibernate batch an order's inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orderIdGenerator")
+    @TableGenerator(name = "orderIdGenerator", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "orders", allocationSize = 50)
     private Integer id;
     
     @JsonIgnore
@@ -12,7 +12,9 @@ import lombok.NoArgsConstructor;
 public class OrderHistoryItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orderHistoryItemIdGenerator")
+    @TableGenerator(name = "orderHistoryItemIdGenerator", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "order_history_items", allocationSize = 50)
     private Integer id;
     
     @JsonIgnore
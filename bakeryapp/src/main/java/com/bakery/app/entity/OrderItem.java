@@ -7,14 +7,17 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = @Index(name = "idx_order_items_item_id", columnList = "item_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class OrderItem {
     
+    // Allocated in blocks, so an order's lines go out as one JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orderItemIdGenerator")
+    @TableGenerator(name = "orderItemIdGenerator", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "order_items", allocationSize = 50)
     private Integer id;
     
     @JsonIgnore
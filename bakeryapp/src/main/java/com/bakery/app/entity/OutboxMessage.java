@@ -0,0 +1,67 @@
+package com.bakery.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An email waiting to be sent, written in the same transaction as the change it reports.
+ * The body is rendered up front, so the row still sends after its order is gone (e.g. moved
+ * to history).
+ */
+@Entity
+@Table(name = "outbox_messages", indexes = {
+        @Index(name = "idx_outbox_messages_due", columnList = "status, next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 50)
+    private String type;  // ORDER_PLACED, ORDER_OUT_FOR_DELIVERY, ORDER_DELIVERED, ORDER_ADDRESS_CHANGED
+    
+    @Column(nullable = false)
+    private String recipient;
+    
+    @Column(nullable = false, length = 500)
+    private String subject;
+    
+    @Lob
+    @Column(nullable = false, columnDefinition = "LONGTEXT")
+    private String body;
+    
+    @Column(nullable = false, length = 20)
+    private String status = "PENDING";  // PENDING, SENT, or FAILED once out of attempts
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    // Also pushed forward while a dispatcher holds the row, so other nodes skip it
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.bakery.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change to an item's stock. Rows are append-only and written by the inventory
+ * ledger in the same transaction as the stock column update they describe.
+ */
+@Entity
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movements_item", columnList = "item_id, variant, weight_grams, created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "item_id", nullable = false)
+    private Integer itemId;
+    
+    @Column(nullable = false, length = 10)
+    private String variant;  // REGULAR or EGGLESS
+    
+    @Column(name = "weight_grams", nullable = false)
+    private Integer weightGrams;  // 0 for the item's shared stock
+    
+    @Column(nullable = false)
+    private Integer delta;
+    
+    @Column(nullable = false, length = 30)
+    private String reason;  // ORDER, ORDER_CANCELLED, ADMIN_ADD, ADMIN_SUBTRACT, ADMIN_SET, ITEM_EDIT (ROLLBACK on older rows)
+    
+    @Column(name = "order_id")
+    private Integer orderId;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
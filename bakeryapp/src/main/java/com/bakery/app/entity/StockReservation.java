@@ -0,0 +1,48 @@
+package com.bakery.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One reserved cart line for a pending Razorpay order. Rows only exist so holds
+ * survive a restart; the live view is kept in memory by StockReservationService.
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_stock_reservations_order", columnList = "razorpay_order_id"),
+        @Index(name = "idx_stock_reservations_expires", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    
+    @Column(name = "razorpay_order_id", nullable = false, length = 64)
+    private String razorpayOrderId;
+    
+    @Column(name = "customer_id", nullable = false)
+    private Integer customerId;
+    
+    @Column(name = "item_id", nullable = false)
+    private Integer itemId;
+    
+    @Column
+    private String eggType;  // "EGGLESS" holds eggless stock, anything else regular stock
+    
+    @Column(name = "weight_grams")
+    private Integer weightGrams;  // variant the hold draws from; 0 or null for shared stock
+    
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
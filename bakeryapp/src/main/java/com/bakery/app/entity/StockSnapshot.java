@@ -0,0 +1,44 @@
+package com.bakery.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock of one item variant at a point in time. The value includes every movement up to
+ * lastMovementId, so stock at a later time is this value plus the movements after it.
+ */
+@Entity
+@Table(name = "stock_snapshots", indexes = {
+        @Index(name = "idx_stock_snapshots_item", columnList = "item_id, variant, weight_grams, taken_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshot {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "item_id", nullable = false)
+    private Integer itemId;
+    
+    @Column(nullable = false, length = 10)
+    private String variant;  // REGULAR or EGGLESS
+    
+    @Column(name = "weight_grams", nullable = false)
+    private Integer weightGrams;  // 0 for the item's shared stock
+    
+    @Column(nullable = false)
+    private Integer stock;
+    
+    @Column(name = "last_movement_id", nullable = false)
+    private Long lastMovementId;
+    
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+}
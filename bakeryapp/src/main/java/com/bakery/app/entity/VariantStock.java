@@ -0,0 +1,38 @@
+package com.bakery.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stock of one sellable variant of an item. Weight 0 is the shared stock used by every
+ * weight without a row of its own, so cakes only need weight rows when a size is baked
+ * separately. Writes go through InventoryLedger; items.stock and items.eggless_stock
+ * mirror the weight-0 rows for the storefront.
+ */
+@Entity
+@Table(name = "variant_stock", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_variant_stock", columnNames = {"item_id", "egg_type", "weight_grams"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VariantStock {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    
+    @Column(name = "item_id", nullable = false)
+    private Integer itemId;
+    
+    @Column(name = "egg_type", nullable = false, length = 10)
+    private String eggType;  // REGULAR or EGGLESS
+    
+    @Column(name = "weight_grams", nullable = false)
+    private Integer weightGrams = 0;
+    
+    @Column(nullable = false)
+    private Integer stock = 0;
+}
@@ -0,0 +1,10 @@
+package com.bakery.app.event;
+
+import com.bakery.app.entity.Order;
+
+/**
+ * Published when a customer changes the delivery address of an open order.
+ */
+public record OrderAddressChangedEvent(Order order, String oldAddress, String oldPhone,
+                                       Double oldLatitude, Double oldLongitude) {
+}
@@ -0,0 +1,9 @@
+package com.bakery.app.event;
+
+import com.bakery.app.entity.Order;
+
+/**
+ * Published once an order has been created from the customer's cart.
+ */
+public record OrderPlacedEvent(Order order) {
+}
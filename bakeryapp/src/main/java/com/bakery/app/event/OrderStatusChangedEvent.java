@@ -0,0 +1,10 @@
+package com.bakery.app.event;
+
+import com.bakery.app.entity.Order;
+
+/**
+ * Published when an admin moves an order to a new status. For "Delivered" the order has
+ * already been moved to history, so only the object carried here still holds it.
+ */
+public record OrderStatusChangedEvent(Order order, String status) {
+}
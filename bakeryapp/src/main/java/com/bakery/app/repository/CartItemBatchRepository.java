@@ -0,0 +1,166 @@
+package com.bakery.app.repository;
+
+import com.bakery.app.entity.Cart;
+import com.bakery.app.entity.CartItem;
+import com.bakery.app.entity.Item;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cart writes issued as JDBC batches: bulk line changes, and keeping the carts' running
+ * totals in step when lines change outside a cart request. Cart items use IDENTITY ids,
+ * which stops Hibernate from batching their inserts.
+ */
+@Repository
+public class CartItemBatchRepository {
+    
+    private static final String INSERT_LINE =
+            "INSERT INTO cart_items (cart_id, item_id, quantity, egg_type, selected_weight, price_at_addition) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    
+    // Takes the matching lines out of their carts' totals, ahead of deleting them
+    private static final String SUBTRACT_LINES =
+            "UPDATE carts c JOIN (SELECT cart_id, " +
+            "SUM(ROUND(COALESCE(price_at_addition, 0) * 100) * quantity) AS total, " +
+            "SUM(CASE WHEN egg_type = 'EGGLESS' THEN ? * quantity ELSE 0 END) AS surcharge, " +
+            "SUM(quantity) AS items, COUNT(*) AS line_total " +
+            "FROM cart_items WHERE %s IN (%s) GROUP BY cart_id) d ON d.cart_id = c.id " +
+            "SET c.subtotal_paise = c.subtotal_paise - (d.total - d.surcharge), " +
+            "c.surcharge_paise = c.surcharge_paise - d.surcharge, " +
+            "c.item_count = c.item_count - d.items, c.line_count = c.line_count - d.line_total, " +
+            "c.version = c.version + 1";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public CartItemBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Inserts the lines into the cart as one batch and sets their generated ids.
+     */
+    public void insertAll(Integer cartId, List<CartItem> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_LINE, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        CartItem line = lines.get(i);
+                        ps.setInt(1, cartId);
+                        ps.setInt(2, line.getItem().getId());
+                        ps.setInt(3, line.getQuantity());
+                        ps.setString(4, line.getEggType());
+                        ps.setObject(5, line.getSelectedWeight(), Types.DOUBLE);
+                        ps.setObject(6, line.getPriceAtAddition(), Types.DOUBLE);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return lines.size();
+                    }
+                }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < lines.size(); i++) {
+            Number id = (Number) generated.get(i).values().iterator().next();
+            lines.get(i).setId(id.intValue());
+        }
+    }
+    
+    public void updateAll(List<CartItem> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE cart_items SET quantity = ?, price_at_addition = ? WHERE id = ?",
+                lines.stream().map(line -> new Object[]{line.getQuantity(), line.getPriceAtAddition(), line.getId()}).toList());
+    }
+    
+    public void deleteAll(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM cart_items WHERE id = ?",
+                ids.stream().map(id -> new Object[]{id}).toList());
+    }
+    
+    /**
+     * Writes the cart's totals if nobody changed the cart since it was read.
+     */
+    public void updateTotals(Cart cart) {
+        int rows = jdbcTemplate.update(
+                "UPDATE carts SET subtotal_paise = ?, surcharge_paise = ?, line_count = ?, item_count = ?, " +
+                "updated_at = ?, version = version + 1 WHERE id = ? AND version = ?",
+                cart.getSubtotalPaise(), cart.getSurchargePaise(), cart.getLineCount(), cart.getItemCount(),
+                LocalDateTime.now(), cart.getId(), cart.getVersion());
+        if (rows == 0) {
+            throw new RuntimeException("Your cart was changed by another request, please try again");
+        }
+        cart.setVersion(cart.getVersion() + 1);
+    }
+    
+    /**
+     * Lines holding the item, with only the cart id set on their cart.
+     */
+    public List<CartItem> findLinesOfItem(Item item) {
+        return jdbcTemplate.query(
+                "SELECT id, cart_id, quantity, egg_type, selected_weight, price_at_addition FROM cart_items WHERE item_id = ?",
+                (rs, rowNum) -> {
+                    Cart cart = new Cart();
+                    cart.setId(rs.getInt("cart_id"));
+                    return new CartItem(rs.getInt("id"), cart, item, rs.getInt("quantity"), rs.getString("egg_type"),
+                            rs.getObject("selected_weight", Double.class), rs.getObject("price_at_addition", Double.class));
+                },
+                item.getId());
+    }
+    
+    /**
+     * Sets the lines' unit prices and moves each line's cart subtotal by the given amount.
+     */
+    public void reprice(List<CartItem> lines, List<Long> subtotalDeltas) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE cart_items SET price_at_addition = ? WHERE id = ?",
+                lines.stream().map(line -> new Object[]{line.getPriceAtAddition(), line.getId()}).toList());
+        List<Object[]> args = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            args.add(new Object[]{subtotalDeltas.get(i), lines.get(i).getCart().getId()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE carts SET subtotal_paise = subtotal_paise + ?, version = version + 1 WHERE id = ?", args);
+    }
+    
+    public void subtractItems(Collection<Integer> itemIds, long egglessSurchargePaise) {
+        subtract("item_id", itemIds, egglessSurchargePaise);
+    }
+    
+    public void subtractLines(Collection<Integer> lineIds, long egglessSurchargePaise) {
+        subtract("id", lineIds, egglessSurchargePaise);
+    }
+    
+    private void subtract(String column, Collection<Integer> ids, long egglessSurchargePaise) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(egglessSurchargePaise);
+        args.addAll(ids);
+        jdbcTemplate.update(String.format(SUBTRACT_LINES, column, placeholders), args.toArray());
+    }
+}
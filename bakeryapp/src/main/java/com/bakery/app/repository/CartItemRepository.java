@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +17,8 @@ public interface CartItemRepository extends JpaRepository<CartItem, Integer> {
     @Modifying
     @Query(value = "DELETE FROM cart_items WHERE item_id = :itemId", nativeQuery = true)
     void deleteByItemId(@Param("itemId") Integer itemId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM cart_items WHERE item_id IN (:itemIds)", nativeQuery = true)
+    void deleteByItemIdIn(@Param("itemIds") Collection<Integer> itemIds);
 }
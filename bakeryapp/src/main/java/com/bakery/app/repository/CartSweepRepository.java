@@ -0,0 +1,140 @@
+package com.bakery.app.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Queries for the cart sweeper. Carts are walked by id range (keyset), so each chunk is a
+ * short index range scan no matter how far the walk has got.
+ */
+@Repository
+public class CartSweepRepository {
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public CartSweepRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Up to {@code limit} cart ids after {@code afterId}, in id order.
+     */
+    public List<Integer> nextCartIds(int afterId, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM carts WHERE id > ? ORDER BY id LIMIT ?",
+                Integer.class, afterId, limit);
+    }
+    
+    public List<Integer> findUnavailableItemIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM items WHERE available = FALSE", Integer.class);
+    }
+    
+    /**
+     * Carts in the id range that still hold lines but were last changed before the cutoff.
+     *
+     * @return pairs of cart id and customer id
+     */
+    public List<int[]> findIdleCarts(int fromId, int toId, LocalDateTime cutoff) {
+        return jdbcTemplate.query(
+                "SELECT id, customer_id FROM carts WHERE id BETWEEN ? AND ? AND line_count > 0 AND updated_at < ?",
+                (rs, i) -> new int[] {rs.getInt(1), rs.getInt(2)}, fromId, toId, cutoff);
+    }
+    
+    /**
+     * Lines in the id range whose item was deleted or is one of {@code staleItemIds}.
+     *
+     * @return pairs of line id and the owning customer id
+     */
+    public List<int[]> findDeadLines(int fromId, int toId, Collection<Integer> staleItemIds) {
+        List<Object> args = new ArrayList<>(staleItemIds.size() + 2);
+        args.add(fromId);
+        args.add(toId);
+        String stale = "";
+        if (!staleItemIds.isEmpty()) {
+            stale = " OR ci.item_id IN (" + String.join(", ", Collections.nCopies(staleItemIds.size(), "?")) + ")";
+            args.addAll(staleItemIds);
+        }
+        return jdbcTemplate.query(
+                "SELECT ci.id, c.customer_id FROM cart_items ci JOIN carts c ON c.id = ci.cart_id " +
+                "LEFT JOIN items i ON i.id = ci.item_id " +
+                "WHERE ci.cart_id BETWEEN ? AND ? AND (i.id IS NULL" + stale + ")",
+                (rs, i) -> new int[] {rs.getInt(1), rs.getInt(2)}, args.toArray());
+    }
+    
+    /**
+     * Locks the lines that are still dead (item deleted or still unavailable) until the
+     * transaction ends, so a line the customer changed or an item put back on sale since
+     * {@link #findDeadLines} is left alone.
+     *
+     * @return pairs of line id and the owning customer id
+     */
+    public List<int[]> lockDeadLines(Collection<Integer> lineIds) {
+        if (lineIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(
+                "SELECT ci.id, c.customer_id FROM cart_items ci JOIN carts c ON c.id = ci.cart_id " +
+                "LEFT JOIN items i ON i.id = ci.item_id " +
+                "WHERE ci.id IN (" + String.join(", ", Collections.nCopies(lineIds.size(), "?")) + ") " +
+                "AND (i.id IS NULL OR i.available = FALSE) FOR UPDATE",
+                (rs, i) -> new int[] {rs.getInt(1), rs.getInt(2)}, lineIds.toArray());
+    }
+    
+    /**
+     * Locks the carts that are still idle until the transaction ends, so a cart changed since
+     * {@link #findIdleCarts} is left alone and one changed later waits for the sweep.
+     *
+     * @return pairs of cart id and customer id
+     */
+    public List<int[]> lockIdleCarts(Collection<Integer> cartIds, LocalDateTime cutoff) {
+        if (cartIds.isEmpty()) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>(cartIds);
+        args.add(cutoff);
+        return jdbcTemplate.query(
+                "SELECT id, customer_id FROM carts WHERE id IN (" +
+                String.join(", ", Collections.nCopies(cartIds.size(), "?")) + ") AND updated_at < ? FOR UPDATE",
+                (rs, i) -> new int[] {rs.getInt(1), rs.getInt(2)}, args.toArray());
+    }
+    
+    /**
+     * Deletes the lines; their carts' totals must already have been adjusted.
+     *
+     * @return number of rows deleted
+     */
+    public int deleteLines(Collection<Integer> lineIds) {
+        if (lineIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update("DELETE FROM cart_items WHERE id IN (" +
+                String.join(", ", Collections.nCopies(lineIds.size(), "?")) + ")", lineIds.toArray());
+    }
+    
+    /**
+     * Empties the carts that are still idle and zeroes their totals. Lock them first with
+     * {@link #lockIdleCarts}; the cutoff is checked again here so neither statement touches a
+     * cart that has been used since.
+     *
+     * @return number of lines deleted
+     */
+    public int emptyCarts(Collection<Integer> cartIds, LocalDateTime cutoff) {
+        if (cartIds.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(cartIds.size(), "?"));
+        List<Object> args = new ArrayList<>(cartIds);
+        args.add(cutoff);
+        int deleted = jdbcTemplate.update("DELETE ci FROM cart_items ci JOIN carts c ON c.id = ci.cart_id " +
+                "WHERE c.id IN (" + placeholders + ") AND c.updated_at < ?", args.toArray());
+        jdbcTemplate.update("UPDATE carts SET subtotal_paise = 0, surcharge_paise = 0, line_count = 0, " +
+                "item_count = 0, version = version + 1 WHERE id IN (" + placeholders + ") AND updated_at < ?",
+                args.toArray());
+        return deleted;
+    }
+}
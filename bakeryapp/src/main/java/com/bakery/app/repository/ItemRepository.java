@@ -1,7 +1,11 @@
 package com.bakery.app.repository;
 
+import com.bakery.app.dto.ItemSummary;
 import com.bakery.app.entity.Item;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +13,16 @@ import java.util.List;
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Integer> {
     List<Item> findByCategoryId(Integer categoryId);
+    
+    @Query("SELECT i.id AS id, i.name AS name, i.price AS price, i.imageUrl AS imageUrl, " +
+           "i.available AS available, i.category.id AS categoryId " +
+           "FROM Item i WHERE i.id > :afterId ORDER BY i.id")
+    List<ItemSummary> findSummariesAfter(@Param("afterId") Integer afterId, Pageable pageable);
+    
+    @Query("SELECT i.id AS id, i.name AS name, i.price AS price, i.imageUrl AS imageUrl, " +
+           "i.available AS available, i.category.id AS categoryId " +
+           "FROM Item i WHERE i.category.id = :categoryId AND i.id > :afterId ORDER BY i.id")
+    List<ItemSummary> findSummariesByCategoryAfter(@Param("categoryId") Integer categoryId,
+                                                   @Param("afterId") Integer afterId,
+                                                   Pageable pageable);
 }
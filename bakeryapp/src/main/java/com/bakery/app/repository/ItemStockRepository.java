@@ -0,0 +1,135 @@
+package com.bakery.app.repository;
+
+import com.bakery.app.util.VariantKey;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Stock writes issued straight to the variant_stock table on behalf of the inventory
+ * ledger. Each UPDATE adds a net delta and only matches while the result stays
+ * non-negative, so a drifted row is reported instead of going below zero. The items
+ * table keeps a copy of the weight-0 rows for the storefront.
+ */
+@Repository
+public class ItemStockRepository {
+    
+    private static final String ADD_VARIANT =
+            "UPDATE variant_stock SET stock = stock + ? " +
+            "WHERE item_id = ? AND egg_type = ? AND weight_grams = ? AND stock + ? >= 0";
+    
+    // Copies the shared rows onto the item and clears "available" once no variant has stock
+    private static final String MIRROR_ITEM =
+            "UPDATE items SET " +
+            "stock = COALESCE((SELECT v.stock FROM variant_stock v WHERE v.item_id = items.id " +
+            "AND v.egg_type = 'REGULAR' AND v.weight_grams = 0), 0), " +
+            "eggless_stock = COALESCE((SELECT v.stock FROM variant_stock v WHERE v.item_id = items.id " +
+            "AND v.egg_type = 'EGGLESS' AND v.weight_grams = 0), 0), " +
+            "available = CASE WHEN EXISTS (SELECT 1 FROM variant_stock v WHERE v.item_id = items.id AND v.stock > 0) " +
+            "THEN available ELSE FALSE END " +
+            "WHERE id = ?";
+    
+    private static final String INSERT_VARIANT =
+            "INSERT IGNORE INTO variant_stock (item_id, egg_type, weight_grams, stock) VALUES (?, ?, ?, 0)";
+    
+    // Gives items without variant rows (e.g. created before variant_stock existed) their shared rows
+    private static final String BACKFILL_REGULAR =
+            "INSERT INTO variant_stock (item_id, egg_type, weight_grams, stock) " +
+            "SELECT i.id, 'REGULAR', 0, i.stock FROM items i WHERE NOT EXISTS " +
+            "(SELECT 1 FROM variant_stock v WHERE v.item_id = i.id AND v.egg_type = 'REGULAR' AND v.weight_grams = 0)";
+    
+    private static final String BACKFILL_EGGLESS =
+            "INSERT INTO variant_stock (item_id, egg_type, weight_grams, stock) " +
+            "SELECT i.id, 'EGGLESS', 0, COALESCE(i.eggless_stock, 0) FROM items i WHERE NOT EXISTS " +
+            "(SELECT 1 FROM variant_stock v WHERE v.item_id = i.id AND v.egg_type = 'EGGLESS' AND v.weight_grams = 0)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public ItemStockRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Applies one delta per {@link VariantKey} as a single JDBC batch. Rows are updated in
+     * (item_id, egg_type, weight_grams) order whatever order the caller passes, so two
+     * batches touching the same rows lock them in the same order and cannot deadlock.
+     *
+     * @return per entry, in the caller's order, true if the row existed and stayed non-negative
+     */
+    public boolean[] applyDeltas(List<Long> keys, List<Integer> deltas) {
+        boolean[] applied = new boolean[keys.size()];
+        if (keys.isEmpty()) {
+            return applied;
+        }
+        // Keys pack the item id above the egg bit and the weight, so numeric order is row order
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(keys::get));
+        List<Object[]> args = new ArrayList<>(keys.size());
+        for (int i : order) {
+            long key = keys.get(i);
+            int delta = deltas.get(i);
+            args.add(new Object[]{delta, VariantKey.itemId(key), VariantKey.variant(VariantKey.eggless(key)),
+                    VariantKey.weightGrams(key), delta});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(ADD_VARIANT, args);
+        for (int i = 0; i < counts.length; i++) {
+            applied[order[i]] = counts[i] > 0;
+        }
+        return applied;
+    }
+    
+    /**
+     * Refreshes the items table's copy of the shared stock rows, one batch entry per item
+     * in ascending id order.
+     */
+    public void mirrorItemColumns(Collection<Integer> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(MIRROR_ITEM, itemIds.stream().sorted().map(id -> new Object[]{id}).toList());
+    }
+    
+    /**
+     * Writes availability flags as one JDBC batch.
+     */
+    public void updateAvailability(List<Integer> itemIds, List<Boolean> available) {
+        List<Object[]> args = new ArrayList<>(itemIds.size());
+        for (int i = 0; i < itemIds.size(); i++) {
+            args.add(new Object[]{available.get(i), itemIds.get(i)});
+        }
+        jdbcTemplate.batchUpdate("UPDATE items SET available = ? WHERE id = ?", args);
+    }
+    
+    /**
+     * Creates an empty variant row unless it already exists.
+     *
+     * @return true if a row was created
+     */
+    public boolean insertVariant(long key) {
+        return jdbcTemplate.update(INSERT_VARIANT, VariantKey.itemId(key),
+                VariantKey.variant(VariantKey.eggless(key)), VariantKey.weightGrams(key)) > 0;
+    }
+    
+    /**
+     * @return number of variant rows created
+     */
+    public int backfillVariants() {
+        return jdbcTemplate.update(BACKFILL_REGULAR) + jdbcTemplate.update(BACKFILL_EGGLESS);
+    }
+    
+    public int currentStock(long key) {
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "SELECT stock FROM variant_stock WHERE item_id = ? AND egg_type = ? AND weight_grams = ?",
+                Integer.class, VariantKey.itemId(key), VariantKey.variant(VariantKey.eggless(key)),
+                VariantKey.weightGrams(key));
+        return rows.isEmpty() ? 0 : rows.get(0);
+    }
+}
@@ -6,9 +6,14 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface OrderHistoryItemRepository extends JpaRepository<OrderHistoryItem, Integer> {
     
     @Query("SELECT COUNT(ohi) FROM OrderHistoryItem ohi WHERE ohi.itemId = :itemId")
     long countByItemId(@Param("itemId") Integer itemId);
+    
+    @Query("SELECT ohi.itemId, SUM(ohi.quantity) FROM OrderHistoryItem ohi WHERE ohi.itemId IS NOT NULL GROUP BY ohi.itemId")
+    List<Object[]> sumQuantityByItem();
 }
@@ -7,9 +7,23 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Integer> {
     
+    // Both lookups drive off idx_order_items_item_id
+    @Query("SELECT COUNT(oi) FROM OrderItem oi WHERE oi.item.id = :itemId AND UPPER(oi.order.status) <> 'DELIVERED'")
+    long countActiveOrderLinesByItemId(@Param("itemId") Integer itemId);
+    
+    @Query("SELECT oi.item.id, COUNT(oi) FROM OrderItem oi WHERE oi.item.id IN :itemIds " +
+           "AND UPPER(oi.order.status) <> 'DELIVERED' GROUP BY oi.item.id")
+    List<Object[]> countActiveOrderLinesByItemIds(@Param("itemIds") Collection<Integer> itemIds);
+    
+    @Query("SELECT oi.item.id, SUM(oi.quantity) FROM OrderItem oi WHERE oi.item IS NOT NULL GROUP BY oi.item.id")
+    List<Object[]> sumQuantityByItem();
+    
     @Modifying
     @Query(value = "UPDATE order_items SET item_id = NULL WHERE item_id = :itemId", nativeQuery = true)
     void nullifyItemReference(@Param("itemId") Integer itemId);
@@ -5,9 +5,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Integer> {
     List<Order> findByCustomerId(Integer customerId);
     List<Order> findByStatus(String status);
+    Optional<Order> findByPaymentId(String paymentId);
 }
@@ -0,0 +1,41 @@
+package com.bakery.app.repository;
+
+import com.bakery.app.entity.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    
+    /**
+     * Locks up to {@code limit} due messages, skipping rows another node has locked.
+     */
+    @Query(value = "SELECT * FROM outbox_messages WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMessage> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.nextAttemptAt = :until WHERE m.id IN :ids")
+    int lease(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+    
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = 'SENT', m.sentAt = :now, m.attempts = m.attempts + 1 WHERE m.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = :status, m.attempts = :attempts, m.nextAttemptAt = :next, " +
+           "m.lastError = :error WHERE m.id = :id")
+    int markFailed(@Param("id") Long id, @Param("status") String status, @Param("attempts") int attempts,
+                   @Param("next") LocalDateTime next, @Param("error") String error);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.status = 'SENT' AND m.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,12 +2,20 @@ package com.bakery.app.repository;
 
 import com.bakery.app.entity.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Integer> {
     List<Review> findByItemId(Integer itemId);
     List<Review> findByCustomerId(Integer customerId);
+
+    @Modifying
+    @Query(value = "DELETE FROM reviews WHERE item_id IN (:itemIds)", nativeQuery = true)
+    void deleteByItemIdIn(@Param("itemIds") Collection<Integer> itemIds);
 }
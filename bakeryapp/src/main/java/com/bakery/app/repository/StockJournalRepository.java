@@ -0,0 +1,59 @@
+package com.bakery.app.repository;
+
+import com.bakery.app.entity.StockMovement;
+import com.bakery.app.entity.StockSnapshot;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Batched JDBC writes for the stock journal. Movement and snapshot ids are IDENTITY
+ * columns, which Hibernate cannot batch, so inserts go through JdbcTemplate.
+ */
+@Repository
+public class StockJournalRepository {
+    
+    private static final String INSERT_MOVEMENT =
+            "INSERT INTO stock_movements (item_id, variant, weight_grams, delta, reason, order_id, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_SNAPSHOT =
+            "INSERT INTO stock_snapshots (item_id, variant, weight_grams, stock, last_movement_id, taken_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public StockJournalRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    public void insertMovements(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT, movements.stream()
+                .map(m -> new Object[]{m.getItemId(), m.getVariant(), m.getWeightGrams(), m.getDelta(), m.getReason(),
+                        m.getOrderId(), Timestamp.valueOf(m.getCreatedAt())})
+                .toList());
+    }
+    
+    public void insertSnapshot(StockSnapshot snapshot) {
+        jdbcTemplate.update(INSERT_SNAPSHOT, snapshot.getItemId(), snapshot.getVariant(), snapshot.getWeightGrams(),
+                snapshot.getStock(), snapshot.getLastMovementId(), Timestamp.valueOf(snapshot.getTakenAt()));
+    }
+    
+    /**
+     * Snapshots every variant row in one set-based insert.
+     *
+     * @return number of snapshot rows written
+     */
+    public int snapshotAllVariants(long lastMovementId, LocalDateTime takenAt) {
+        return jdbcTemplate.update(
+                "INSERT INTO stock_snapshots (item_id, variant, weight_grams, stock, last_movement_id, taken_at) " +
+                "SELECT item_id, egg_type, weight_grams, stock, ?, ? FROM variant_stock",
+                lastMovementId, Timestamp.valueOf(takenAt));
+    }
+}
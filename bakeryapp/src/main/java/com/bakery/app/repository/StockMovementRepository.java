@@ -0,0 +1,28 @@
+package com.bakery.app.repository;
+
+import com.bakery.app.entity.StockMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    
+    @Query("SELECT COALESCE(MAX(m.id), 0) FROM StockMovement m")
+    long findMaxId();
+    
+    @Query("SELECT COALESCE(SUM(m.delta), 0) FROM StockMovement m WHERE m.itemId = :itemId " +
+           "AND m.variant = :variant AND m.weightGrams = :weightGrams AND m.id > :afterId AND m.createdAt <= :at")
+    long sumDeltaAfter(@Param("itemId") Integer itemId,
+                       @Param("variant") String variant,
+                       @Param("weightGrams") Integer weightGrams,
+                       @Param("afterId") Long afterId,
+                       @Param("at") LocalDateTime at);
+    
+    List<StockMovement> findByItemIdOrderByIdDesc(Integer itemId, Pageable pageable);
+}
@@ -0,0 +1,33 @@
+package com.bakery.app.repository;
+
+import com.bakery.app.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Integer> {
+    
+    List<StockReservation> findByExpiresAtAfter(LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.razorpayOrderId = :razorpayOrderId")
+    int deleteByRazorpayOrderId(@Param("razorpayOrderId") String razorpayOrderId);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.razorpayOrderId = :razorpayOrderId WHERE r.razorpayOrderId = :holdId")
+    int rekey(@Param("holdId") String holdId, @Param("razorpayOrderId") String razorpayOrderId);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
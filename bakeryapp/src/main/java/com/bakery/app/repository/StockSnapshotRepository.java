@@ -0,0 +1,15 @@
+package com.bakery.app.repository;
+
+import com.bakery.app.entity.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+    
+    Optional<StockSnapshot> findFirstByItemIdAndVariantAndWeightGramsAndTakenAtLessThanEqualOrderByTakenAtDescIdDesc(
+            Integer itemId, String variant, Integer weightGrams, LocalDateTime at);
+}
@@ -0,0 +1,21 @@
+package com.bakery.app.repository;
+
+import com.bakery.app.entity.VariantStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface VariantStockRepository extends JpaRepository<VariantStock, Integer> {
+    
+    List<VariantStock> findByItemIdIn(Collection<Integer> itemIds);
+    
+    @Modifying
+    @Query(value = "DELETE FROM variant_stock WHERE item_id IN (:itemIds)", nativeQuery = true)
+    void deleteByItemIdIn(@Param("itemIds") Collection<Integer> itemIds);
+}
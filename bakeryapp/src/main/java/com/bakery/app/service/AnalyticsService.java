@@ -1,6 +1,7 @@
 package com.bakery.app.service;
 
 import com.bakery.app.dto.AnalyticsDTO;
+import com.bakery.app.dto.LowStockAlert;
 import com.bakery.app.entity.Order;
 import com.bakery.app.entity.OrderHistory;
 import com.bakery.app.entity.OrderItem;
@@ -10,7 +11,7 @@ import com.bakery.app.entity.Item;
 import com.bakery.app.repository.OrderRepository;
 import com.bakery.app.repository.OrderHistoryRepository;
 import com.bakery.app.repository.CustomerRepository;
-import com.bakery.app.repository.ItemRepository;
+import com.bakery.app.util.VariantKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -34,7 +35,7 @@ public class AnalyticsService {
     private CustomerRepository customerRepository;
     
     @Autowired
-    private ItemRepository itemRepository;
+    private LowStockMonitor lowStockMonitor;
     
     public AnalyticsDTO getAnalytics() {
         AnalyticsDTO analytics = new AnalyticsDTO();
@@ -256,21 +257,29 @@ public class AnalyticsService {
     }
     
     private List<AnalyticsDTO.LowStockItem> calculateLowStockItems() {
-        int threshold = 10; // Low stock threshold
-        
-        return itemRepository.findAll().stream()
-            .filter(item -> item.getStock() != null && item.getStock() < threshold)
-            .map(item -> new AnalyticsDTO.LowStockItem(
-                item.getId(),
-                item.getName(),
-                item.getStock(),
-                threshold,
-                item.getCategory() != null ? item.getCategory().getName() : "N/A"
+        // Precomputed by the alert engine, lowest stock first, with per-item thresholds
+        return lowStockMonitor.lowStock().stream()
+            .map(alert -> new AnalyticsDTO.LowStockItem(
+                alert.getItemId(),
+                alert.getItemName() + variantLabel(alert),
+                alert.getStock(),
+                alert.getThreshold(),
+                alert.getCategory() != null ? alert.getCategory() : "N/A"
             ))
-            .sorted(Comparator.comparingInt(AnalyticsDTO.LowStockItem::getCurrentStock))
             .collect(Collectors.toList());
     }
     
+    private static String variantLabel(LowStockAlert alert) {
+        List<String> parts = new ArrayList<>();
+        if (VariantKey.EGGLESS.equals(alert.getEggType())) {
+            parts.add("eggless");
+        }
+        if (alert.getWeight() != null) {
+            parts.add(alert.getWeight() + " kg");
+        }
+        return parts.isEmpty() ? "" : " (" + String.join(", ", parts) + ")";
+    }
+    
     // Helper classes
     private static class OrderData {
         LocalDateTime date;
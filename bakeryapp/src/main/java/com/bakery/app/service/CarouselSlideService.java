@@ -14,6 +14,9 @@ public class CarouselSlideService {
     @Autowired
     private CarouselSlideRepository carouselSlideRepository;
     
+    @Autowired
+    private CatalogVersion catalogVersion;
+    
     public List<CarouselSlide> getAllSlides() {
         return carouselSlideRepository.findAllByOrderByDisplayOrderAsc();
     }
@@ -27,7 +30,9 @@ public class CarouselSlideService {
     }
     
     public CarouselSlide createSlide(CarouselSlide slide) {
-        return carouselSlideRepository.save(slide);
+        CarouselSlide savedSlide = carouselSlideRepository.save(slide);
+        catalogVersion.bumpAfterCommit();
+        return savedSlide;
     }
     
     public CarouselSlide updateSlide(Long id, CarouselSlide slideDetails) {
@@ -44,10 +49,13 @@ public class CarouselSlideService {
         slide.setDisplayOrder(slideDetails.getDisplayOrder());
         slide.setActive(slideDetails.getActive());
         
-        return carouselSlideRepository.save(slide);
+        CarouselSlide savedSlide = carouselSlideRepository.save(slide);
+        catalogVersion.bumpAfterCommit();
+        return savedSlide;
     }
     
     public void deleteSlide(Long id) {
         carouselSlideRepository.deleteById(id);
+        catalogVersion.bumpAfterCommit();
     }
 }
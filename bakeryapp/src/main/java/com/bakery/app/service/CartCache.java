@@ -0,0 +1,170 @@
+package com.bakery.app.service;
+
+import com.bakery.app.entity.Cart;
+import com.bakery.app.entity.CartItem;
+import com.bakery.app.entity.Item;
+import com.bakery.app.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded, time-limited cache of customer carts. Cart writes go through to the cache once
+ * their transaction commits; an item change or deletion evicts every cart holding that
+ * item via a reverse index. Cached carts are detached copies with an unmodifiable item
+ * list, so callers must not change them.
+ */
+@Component
+public class CartCache implements CatalogListener {
+
+    private final int maxSize;
+    private final long ttlMillis;
+
+    // Everything below is guarded by "this"
+    private final LinkedHashMap<Integer, Entry> carts = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, Set<Integer>> customersByItem = new HashMap<>();
+    // Bumped on every write and eviction; a read-through fill only lands if nothing changed meanwhile
+    private long stamp;
+
+    public CartCache(@Value("${cart.cache.max-size:10000}") int maxSize,
+                     @Value("${cart.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public synchronized Cart get(Integer customerId) {
+        Entry entry = carts.get(customerId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            remove(customerId);
+            return null;
+        }
+        return entry.cart();
+    }
+
+    /**
+     * Take before reading a cart from the database and pass to {@link #fill}.
+     */
+    public synchronized long stamp() {
+        return stamp;
+    }
+
+    /**
+     * Caches a cart read from the database, unless a write or eviction happened since
+     * {@code readStamp} (the read may then be stale).
+     *
+     * @return the cached copy, or the cart itself if it was not cached
+     */
+    public synchronized Cart fill(Integer customerId, Cart cart, long readStamp) {
+        if (readStamp != stamp) {
+            return cart;
+        }
+        return put(customerId, cart);
+    }
+
+    /**
+     * Replaces the cached cart with the given one once the current transaction commits.
+     */
+    public void writeThrough(Integer customerId, Cart cart) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                stamp++;
+                put(customerId, cart);
+            }
+        });
+    }
+
+    /**
+     * Drops the cached cart once the current transaction commits.
+     */
+    public void evict(Integer customerId) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                stamp++;
+                remove(customerId);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void catalogLoaded(Collection<Item> items) {
+        // Item details may have changed wholesale (e.g. a category rename)
+        stamp++;
+        carts.clear();
+        customersByItem.clear();
+    }
+
+    @Override
+    public synchronized void catalogChanged(Collection<Item> upserts, Collection<Integer> removals) {
+        stamp++;
+        upserts.forEach(item -> evictHolders(item.getId()));
+        removals.forEach(this::evictHolders);
+    }
+
+    private void evictHolders(Integer itemId) {
+        Set<Integer> holders = customersByItem.remove(itemId);
+        if (holders != null) {
+            new ArrayList<>(holders).forEach(this::remove);
+        }
+    }
+
+    private Cart put(Integer customerId, Cart cart) {
+        remove(customerId);
+        Cart copy = copyOf(cart);
+        carts.put(customerId, new Entry(copy, System.currentTimeMillis() + ttlMillis));
+        for (CartItem line : copy.getItems()) {
+            customersByItem.computeIfAbsent(line.getItem().getId(), id -> new HashSet<>()).add(customerId);
+        }
+        if (carts.size() > maxSize) {
+            // Least recently used first
+            remove(carts.keySet().iterator().next());
+        }
+        return copy;
+    }
+
+    private void remove(Integer customerId) {
+        Entry entry = carts.remove(customerId);
+        if (entry == null) {
+            return;
+        }
+        for (CartItem line : entry.cart().getItems()) {
+            Set<Integer> holders = customersByItem.get(line.getItem().getId());
+            if (holders != null) {
+                holders.remove(customerId);
+                if (holders.isEmpty()) {
+                    customersByItem.remove(line.getItem().getId());
+                }
+            }
+        }
+    }
+
+    private static Cart copyOf(Cart cart) {
+        Cart copy = new Cart();
+        copy.setId(cart.getId());
+        copy.setCustomer(cart.getCustomer());
+        copy.setSubtotalPaise(cart.getSubtotalPaise());
+        copy.setSurchargePaise(cart.getSurchargePaise());
+        copy.setLineCount(cart.getLineCount());
+        copy.setItemCount(cart.getItemCount());
+        List<CartItem> items = new ArrayList<>(cart.getItems().size());
+        for (CartItem line : cart.getItems()) {
+            items.add(new CartItem(line.getId(), copy, line.getItem(), line.getQuantity(),
+                    line.getEggType(), line.getSelectedWeight(), line.getPriceAtAddition()));
+        }
+        copy.setItems(List.copyOf(items));
+        return copy;
+    }
+
+    private record Entry(Cart cart, long expiresAt) {
+    }
+}
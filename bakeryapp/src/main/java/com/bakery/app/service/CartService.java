@@ -1,9 +1,12 @@
 package com.bakery.app.service;
 
 import com.bakery.app.dto.CartItemRequest;
+import com.bakery.app.dto.CartOperation;
+import com.bakery.app.dto.CartSummary;
 import com.bakery.app.entity.Cart;
 import com.bakery.app.entity.CartItem;
 import com.bakery.app.entity.Item;
+import com.bakery.app.repository.CartItemBatchRepository;
 import com.bakery.app.repository.CartItemRepository;
 import com.bakery.app.repository.CartRepository;
 import jakarta.persistence.EntityManager;
@@ -12,7 +15,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,22 +30,61 @@ public class CartService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ItemService itemService;
+    private final PricingService pricingService;
+    private final StockReservationService stockReservationService;
+    private final CartCache cartCache;
+    private final CartItemBatchRepository cartItemBatchRepository;
+    private final CouponService couponService;
     
     @PersistenceContext
     private EntityManager entityManager;
     
-    @Transactional(readOnly = true)
+    /**
+     * Read-only view of the customer's cart, served from {@link CartCache} when possible.
+     * Not transactional so a cache hit never borrows a connection.
+     */
     public Cart getCartByCustomerId(Integer customerId) {
+        Cart cached = cartCache.get(customerId);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = cartCache.stamp();
+        return cartCache.fill(customerId, loadCart(customerId), stamp);
+    }
+    
+    /**
+     * The customer's cart as the database has it, bypassing {@link CartCache}, for callers that
+     * act on its lines (checkout). Run it in the caller's transaction so the lines it returns
+     * are the ones that transaction later clears.
+     */
+    public Cart getCartForCheckout(Integer customerId) {
+        return loadCart(customerId);
+    }
+    
+    /**
+     * The cart's running totals, plus the discount a coupon would give on them. Only a
+     * preview: the coupon's usage count is not touched.
+     */
+    public CartSummary getSummary(Integer customerId, String couponCode) {
+        CartSummary summary = getCartByCustomerId(customerId).getSummary();
+        if (couponCode != null && !couponCode.isBlank()) {
+            double discount = Math.min(couponService.calculateDiscount(couponCode, summary.getTotal()), summary.getTotal());
+            summary.setCouponCode(couponCode);
+            summary.setDiscount(discount);
+            summary.setPayable(summary.getTotal() - discount);
+        }
+        return summary;
+    }
+    
+    private Cart loadCart(Integer customerId) {
         // Use JOIN FETCH query to get fresh data from database
-        Cart cart = cartRepository.findByCustomerIdWithItems(customerId)
+        return cartRepository.findByCustomerIdWithItems(customerId)
                 .orElseThrow(() -> new RuntimeException("Cart not found for customer: " + customerId));
-        System.out.println("Fetched cart with " + cart.getItems().size() + " items for customer: " + customerId);
-        return cart;
     }
     
     @Transactional
     public Cart addItemToCart(Integer customerId, CartItemRequest request) {
-        Cart cart = getCartByCustomerId(customerId);
+        Cart cart = loadCart(customerId);
         Item item = itemService.getItemById(request.getItemId());
         
         // Check if item is available
@@ -45,30 +93,20 @@ public class CartService {
         }
         
         // Check if item already exists in cart with same egg type and weight (for cakes)
-        Optional<CartItem> existingCartItem = cart.getItems().stream()
-                .filter(ci -> ci.getItem().getId().equals(item.getId()) && 
-                        ((ci.getEggType() == null && request.getEggType() == null) ||
-                         (ci.getEggType() != null && ci.getEggType().equals(request.getEggType()))) &&
-                        ((ci.getSelectedWeight() == null && request.getSelectedWeight() == null) ||
-                         (ci.getSelectedWeight() != null && ci.getSelectedWeight().equals(request.getSelectedWeight()))))
-                .findFirst();
+        Optional<CartItem> existingCartItem = findLine(cart, item.getId(), request.getEggType(), request.getSelectedWeight());
+        
+        // Price is computed server-side; any client-supplied priceAtAddition is ignored
+        double unitPrice = pricingService.unitPrice(item, request.getEggType(), request.getSelectedWeight());
         
         int newQuantity = request.getQuantity();
         if (existingCartItem.isPresent()) {
             newQuantity += existingCartItem.get().getQuantity();
         }
         
-        // Validate stock availability based on egg type
-        int availableStock;
-        String stockType;
-        if ("EGGLESS".equals(request.getEggType())) {
-            availableStock = item.getEgglessStock();
-            stockType = "Eggless variant";
-        } else {
-            // Use regular stock for both null and "EGG" - they're the same
-            availableStock = item.getStock();
-            stockType = "Regular/Egg";
-        }
+        // Validate stock availability based on egg type, less what pending payments hold
+        int availableStock = Math.max(0, stockReservationService.availableStock(item.getId(), request.getEggType(), request.getSelectedWeight()));
+        // Regular stock covers both null and "EGG" - they're the same
+        String stockType = "EGGLESS".equals(request.getEggType()) ? "Eggless variant" : "Regular/Egg";
         
         if (availableStock < newQuantity) {
             throw new RuntimeException("Insufficient stock for " + stockType + " of item: " + item.getName() + 
@@ -79,11 +117,10 @@ public class CartService {
         if (existingCartItem.isPresent()) {
             // Update quantity
             CartItem cartItem = existingCartItem.get();
+            count(cart, cartItem, -1);
             cartItem.setQuantity(newQuantity);
-            // Update price if provided (for cakes with weight pricing)
-            if (request.getPriceAtAddition() != null) {
-                cartItem.setPriceAtAddition(request.getPriceAtAddition());
-            }
+            cartItem.setPriceAtAddition(unitPrice);
+            count(cart, cartItem, 1);
             cartItemRepository.save(cartItem);
         } else {
             // Add new item
@@ -93,35 +130,170 @@ public class CartService {
             cartItem.setQuantity(request.getQuantity());
             cartItem.setEggType(request.getEggType());
             cartItem.setSelectedWeight(request.getSelectedWeight());  // Store selected weight for cakes
-            cartItem.setPriceAtAddition(request.getPriceAtAddition());  // Store price at time of addition
-            cartItemRepository.save(cartItem);
+            cartItem.setPriceAtAddition(unitPrice);  // Store price at time of addition
+            cart.getItems().add(cartItemRepository.save(cartItem));
+            count(cart, cartItem, 1);
+        }
+        
+        cartCache.writeThrough(customerId, cart);
+        return cart;
+    }
+    
+    /**
+     * Applies add / update / remove operations to the customer's cart in one transaction,
+     * e.g. a reorder or moving a wishlist to the cart. Items are loaded in one query, stock
+     * is checked once for every line the batch grows, and the rows are written as JDBC
+     * batches. Any invalid operation rejects the whole batch.
+     */
+    @Transactional
+    public Cart applyBatch(Integer customerId, List<CartOperation> operations) {
+        Cart cart = loadCart(customerId);
+        // Detached: the rows are written by the batches below
+        entityManager.detach(cart);
+        Map<Integer, Integer> originalQuantities = new HashMap<>();
+        Map<Integer, Double> originalPrices = new HashMap<>();
+        for (CartItem line : cart.getItems()) {
+            originalQuantities.put(line.getId(), line.getQuantity());
+            originalPrices.put(line.getId(), line.getPriceAtAddition());
+        }
+        
+        Map<Integer, Item> items = itemService.getItemsByIds(operations.stream()
+                .filter(op -> "add".equalsIgnoreCase(op.getOperation()) && op.getItemId() != null)
+                .map(CartOperation::getItemId)
+                .collect(Collectors.toSet()));
+        for (int i = 0; i < operations.size(); i++) {
+            try {
+                applyOperation(cart, operations.get(i), items);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Operation " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        
+        List<CartItem> inserts = new ArrayList<>();
+        List<CartItem> updates = new ArrayList<>();
+        for (CartItem line : cart.getItems()) {
+            Integer before = originalQuantities.remove(line.getId());
+            if (before == null || line.getQuantity() > before) {
+                // Validate stock availability for lines the batch grows, less what pending payments hold
+                Item item = line.getItem();
+                int availableStock = Math.max(0, stockReservationService.availableStock(item.getId(), line.getEggType(), line.getSelectedWeight()));
+                if (availableStock < line.getQuantity()) {
+                    throw new RuntimeException("Insufficient stock for item: " + item.getName() + 
+                                             ". Available: " + availableStock + 
+                                             ", Requested: " + line.getQuantity());
+                }
+            }
+            if (line.getId() == null) {
+                inserts.add(line);
+            } else if (!line.getQuantity().equals(before)
+                    || !Objects.equals(line.getPriceAtAddition(), originalPrices.get(line.getId()))) {
+                updates.add(line);
+            }
         }
         
-        return getCartByCustomerId(customerId);
+        // Whatever is left was removed
+        cartItemBatchRepository.deleteAll(new ArrayList<>(originalQuantities.keySet()));
+        cartItemBatchRepository.updateAll(updates);
+        cartItemBatchRepository.insertAll(cart.getId(), inserts);
+        cartItemBatchRepository.updateTotals(cart);
+        
+        cartCache.writeThrough(customerId, cart);
+        return cart;
+    }
+    
+    private void applyOperation(Cart cart, CartOperation op, Map<Integer, Item> items) {
+        String operation = op.getOperation();
+        if ("add".equalsIgnoreCase(operation)) {
+            if (op.getItemId() == null || op.getQuantity() == null || op.getQuantity() <= 0) {
+                throw new RuntimeException("Add needs an item id and a positive quantity");
+            }
+            Item item = items.get(op.getItemId());
+            if (item == null) {
+                throw new RuntimeException("Item not found with id: " + op.getItemId());
+            }
+            if (!item.getAvailable()) {
+                throw new RuntimeException("Item '" + item.getName() + "' is currently unavailable");
+            }
+            double unitPrice = pricingService.unitPrice(item, op.getEggType(), op.getSelectedWeight());
+            Optional<CartItem> existing = findLine(cart, item.getId(), op.getEggType(), op.getSelectedWeight());
+            if (existing.isPresent()) {
+                CartItem line = existing.get();
+                count(cart, line, -1);
+                line.setQuantity(line.getQuantity() + op.getQuantity());
+                line.setPriceAtAddition(unitPrice);
+                count(cart, line, 1);
+            } else {
+                CartItem line = new CartItem(null, cart, item, op.getQuantity(), op.getEggType(),
+                        op.getSelectedWeight(), unitPrice);
+                cart.getItems().add(line);
+                count(cart, line, 1);
+            }
+        } else if ("update".equalsIgnoreCase(operation) || "remove".equalsIgnoreCase(operation)) {
+            CartItem line = cart.getItems().stream()
+                    .filter(ci -> ci.getId() != null && ci.getId().equals(op.getCartItemId()))
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("Cart item not found with id: " + op.getCartItemId()));
+            count(cart, line, -1);
+            if ("remove".equalsIgnoreCase(operation) || op.getQuantity() == null || op.getQuantity() <= 0) {
+                // Identity match: CartItem equality walks back into the cart
+                cart.getItems().removeIf(ci -> ci == line);
+            } else {
+                line.setQuantity(op.getQuantity());
+                count(cart, line, 1);
+            }
+        } else {
+            throw new RuntimeException("Invalid operation. Use 'add', 'update', or 'remove'");
+        }
+    }
+    
+    /**
+     * Adds (sign 1) or takes back (sign -1) a line's share of the cart's running totals at
+     * the line's stored unit price. Call with -1 before changing a line and 1 after.
+     */
+    private static void count(Cart cart, CartItem line, int sign) {
+        long unitPaise = Math.round((line.getPriceAtAddition() != null ? line.getPriceAtAddition() : 0.0) * 100);
+        long surcharge = "EGGLESS".equals(line.getEggType()) ? PricingService.EGGLESS_SURCHARGE_PAISE : 0;
+        cart.setSubtotalPaise(cart.getSubtotalPaise() + sign * (unitPaise - surcharge) * line.getQuantity());
+        cart.setSurchargePaise(cart.getSurchargePaise() + sign * surcharge * line.getQuantity());
+        cart.setItemCount(cart.getItemCount() + sign * line.getQuantity());
+        cart.setLineCount(cart.getLineCount() + sign);
+    }
+    
+    private static Optional<CartItem> findLine(Cart cart, Integer itemId, String eggType, Double selectedWeight) {
+        return cart.getItems().stream()
+                .filter(ci -> ci.getItem().getId().equals(itemId)
+                        && Objects.equals(ci.getEggType(), eggType)
+                        && Objects.equals(ci.getSelectedWeight(), selectedWeight))
+                .findFirst();
     }
     
     @Transactional
     public Cart updateCartItem(Integer cartItemId, Integer quantity) {
         CartItem cartItem = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
+        Cart cart = cartItem.getCart();
         
+        count(cart, cartItem, -1);
         if (quantity <= 0) {
+            cart.getItems().remove(cartItem);
             cartItemRepository.delete(cartItem);
         } else {
-            // Validate stock availability
+            // Validate stock availability for the line's variant, less what pending payments hold
             Item item = cartItem.getItem();
-            if (item.getStock() < quantity) {
+            int availableStock = Math.max(0, stockReservationService.availableStock(item.getId(), cartItem.getEggType(), cartItem.getSelectedWeight()));
+            if (availableStock < quantity) {
                 throw new RuntimeException("Insufficient stock for item: " + item.getName() + 
-                                         ". Available: " + item.getStock() + 
+                                         ". Available: " + availableStock + 
                                          ", Requested: " + quantity);
             }
             
             cartItem.setQuantity(quantity);
+            count(cart, cartItem, 1);
             cartItemRepository.save(cartItem);
         }
         
-        return cartRepository.findById(cartItem.getCart().getId())
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
+        cartCache.writeThrough(cart.getCustomer().getId(), cart);
+        return cart;
     }
     
     @Transactional
@@ -136,6 +308,7 @@ public class CartService {
         
         // Remove the item from the cart's collection first
         Cart cart = cartItem.getCart();
+        count(cart, cartItem, -1);
         cart.getItems().remove(cartItem);
         
         // Delete the cart item
@@ -143,14 +316,20 @@ public class CartService {
         
         // Flush to database
         entityManager.flush();
+        cartCache.writeThrough(cart.getCustomer().getId(), cart);
         
         System.out.println("Cart item " + cartItemId + " deleted successfully");
     }
     
     @Transactional
     public void clearCart(Integer customerId) {
-        Cart cart = getCartByCustomerId(customerId);
+        Cart cart = loadCart(customerId);
         cart.getItems().clear();
+        cart.setSubtotalPaise(0L);
+        cart.setSurchargePaise(0L);
+        cart.setLineCount(0);
+        cart.setItemCount(0);
         cartRepository.save(cart);
+        cartCache.writeThrough(customerId, cart);
     }
 }
@@ -0,0 +1,176 @@
+package com.bakery.app.service;
+
+import com.bakery.app.repository.CartItemBatchRepository;
+import com.bakery.app.repository.CartSweepRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reclaims cart rows nobody will check out. Walks the carts in id-ordered chunks, each in its
+ * own short transaction, and
+ * <ul>
+ *   <li>empties carts not touched for {@code cart.sweep.idle-days}, and</li>
+ *   <li>removes lines whose item was deleted or has been unavailable for
+ *       {@code cart.sweep.unavailable-days}.</li>
+ * </ul>
+ * Candidates are found with plain reads, then locked and rechecked by primary key before
+ * anything is written, so a cart the customer used in between is skipped.
+ * Items do not record when they went unavailable, so the sweeper tracks that itself from run
+ * to run; the clock restarts when the application does.
+ */
+@Component
+public class CartSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartSweeper.class);
+
+    private final CartSweepRepository sweepRepository;
+    private final CartItemBatchRepository cartItemBatchRepository;
+    private final CartCache cartCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Duration idleAfter;
+    private final Duration unavailableAfter;
+
+    // Only touched by sweep(), which is synchronized
+    private final Map<Integer, LocalDateTime> unavailableSince = new HashMap<>();
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong cartsScanned = new AtomicLong();
+    private final AtomicLong cartsEmptied = new AtomicLong();
+    private final AtomicLong deadLinesRemoved = new AtomicLong();
+    private final AtomicLong idleLinesRemoved = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunMillis;
+
+    public CartSweeper(CartSweepRepository sweepRepository,
+                       CartItemBatchRepository cartItemBatchRepository,
+                       CartCache cartCache,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${cart.sweep.chunk-size:500}") int chunkSize,
+                       @Value("${cart.sweep.idle-days:30}") long idleDays,
+                       @Value("${cart.sweep.unavailable-days:3}") long unavailableDays) {
+        this.sweepRepository = sweepRepository;
+        this.cartItemBatchRepository = cartItemBatchRepository;
+        this.cartCache = cartCache;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.idleAfter = Duration.ofDays(idleDays);
+        this.unavailableAfter = Duration.ofDays(unavailableDays);
+    }
+
+    @Scheduled(cron = "${cart.sweep.cron:0 20 * * * *}")
+    public synchronized void sweep() {
+        long started = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        Set<Integer> staleItemIds = trackUnavailable(now);
+        LocalDateTime idleCutoff = now.minus(idleAfter);
+
+        int scanned = 0;
+        int emptied = 0;
+        int idleLines = 0;
+        int deadLines = 0;
+        int afterId = 0;
+        List<Integer> cartIds;
+        while (!(cartIds = sweepRepository.nextCartIds(afterId, chunkSize)).isEmpty()) {
+            int fromId = cartIds.get(0);
+            int toId = cartIds.get(cartIds.size() - 1);
+            int[] removed = transactionTemplate.execute(status -> sweepChunk(fromId, toId, idleCutoff, staleItemIds));
+            emptied += removed[0];
+            idleLines += removed[1];
+            deadLines += removed[2];
+            scanned += cartIds.size();
+            afterId = toId;
+        }
+
+        runs.incrementAndGet();
+        cartsScanned.addAndGet(scanned);
+        cartsEmptied.addAndGet(emptied);
+        idleLinesRemoved.addAndGet(idleLines);
+        deadLinesRemoved.addAndGet(deadLines);
+        lastRunAt = now;
+        lastRunMillis = System.currentTimeMillis() - started;
+        logger.info("Cart sweep scanned {} cart(s) in {} ms: emptied {} idle cart(s) ({} line(s)), removed {} dead line(s)",
+                scanned, lastRunMillis, emptied, idleLines, deadLines);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("runs", runs.get());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("cartsScanned", cartsScanned.get());
+        stats.put("cartsEmptied", cartsEmptied.get());
+        stats.put("idleLinesRemoved", idleLinesRemoved.get());
+        stats.put("deadLinesRemoved", deadLinesRemoved.get());
+        stats.put("rowsReclaimed", idleLinesRemoved.get() + deadLinesRemoved.get());
+        return stats;
+    }
+
+    /**
+     * @return removed counts: idle carts emptied, their lines, and dead lines
+     */
+    private int[] sweepChunk(int fromId, int toId, LocalDateTime idleCutoff, Set<Integer> staleItemIds) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int[] cart : sweepRepository.findIdleCarts(fromId, toId, idleCutoff)) {
+            candidates.add(cart[0]);
+        }
+        List<int[]> idle = sweepRepository.lockIdleCarts(candidates, idleCutoff);
+        List<Integer> idleCartIds = new ArrayList<>(idle.size());
+        for (int[] cart : idle) {
+            idleCartIds.add(cart[0]);
+        }
+        int idleLines = sweepRepository.emptyCarts(idleCartIds, idleCutoff);
+
+        List<Integer> deadCandidates = new ArrayList<>();
+        for (int[] line : sweepRepository.findDeadLines(fromId, toId, staleItemIds)) {
+            deadCandidates.add(line[0]);
+        }
+        List<int[]> dead = sweepRepository.lockDeadLines(deadCandidates);
+        List<Integer> lineIds = new ArrayList<>(dead.size());
+        for (int[] line : dead) {
+            lineIds.add(line[0]);
+        }
+        cartItemBatchRepository.subtractLines(lineIds, PricingService.EGGLESS_SURCHARGE_PAISE);
+        int deadLines = sweepRepository.deleteLines(lineIds);
+
+        // Only the carts written above; evict() drops them once the chunk commits
+        for (int[] cart : idle) {
+            cartCache.evict(cart[1]);
+        }
+        for (int[] line : dead) {
+            cartCache.evict(line[1]);
+        }
+        return new int[] {idleCartIds.size(), idleLines, deadLines};
+    }
+
+    /**
+     * Updates when each unavailable item was first seen unavailable, and returns those past the grace period.
+     */
+    private Set<Integer> trackUnavailable(LocalDateTime now) {
+        Set<Integer> unavailable = new HashSet<>(sweepRepository.findUnavailableItemIds());
+        unavailableSince.keySet().retainAll(unavailable);
+        LocalDateTime cutoff = now.minus(unavailableAfter);
+        Set<Integer> stale = new HashSet<>();
+        for (Integer itemId : unavailable) {
+            if (!unavailableSince.computeIfAbsent(itemId, id -> now).isAfter(cutoff)) {
+                stale.add(itemId);
+            }
+        }
+        return stale;
+    }
+}
@@ -0,0 +1,159 @@
+package com.bakery.app.service;
+
+import com.bakery.app.entity.Item;
+import com.bakery.app.repository.ItemRepository;
+import com.bakery.app.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the current {@link CatalogSnapshot}. Reads are a single volatile load; writes
+ * publish a new snapshot only after the surrounding transaction commits, so readers
+ * never observe uncommitted or rolled-back catalog changes.
+ */
+@Component
+public class CatalogCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogCache.class);
+
+    private final ItemRepository itemRepository;
+    private final ObjectProvider<CatalogListener> listeners;
+    private final CatalogVersion catalogVersion;
+    private final AtomicLong versions = new AtomicLong();
+    private final Object writeLock = new Object();
+
+    private volatile CatalogSnapshot current;
+
+    public CatalogCache(ItemRepository itemRepository,
+                        ObjectProvider<CatalogListener> listeners,
+                        CatalogVersion catalogVersion) {
+        this.itemRepository = itemRepository;
+        this.listeners = listeners;
+        this.catalogVersion = catalogVersion;
+    }
+
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot snapshot = current;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (writeLock) {
+            if (current == null) {
+                List<Item> items = itemRepository.findAll();
+                CatalogSnapshot loaded = new CatalogSnapshot(versions.incrementAndGet(), items);
+                listeners.orderedStream().forEach(listener -> listener.catalogLoaded(loaded.getItems()));
+                current = loaded;
+                logger.info("Loaded catalog snapshot v{} with {} items", loaded.getVersion(), items.size());
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Publishes the saved item once the current transaction commits.
+     */
+    public void itemSaved(Item item) {
+        TransactionHooks.afterCommit(() -> apply(List.of(item), List.of()));
+    }
+
+    public void itemDeleted(Integer itemId) {
+        itemsDeleted(List.of(itemId));
+    }
+
+    public void itemsDeleted(Collection<Integer> itemIds) {
+        TransactionHooks.afterCommit(() -> apply(List.of(), itemIds));
+    }
+
+    /**
+     * Publishes committed stock levels for items in the snapshot, then bumps the catalog
+     * version so clients and the response cache stop serving the old stock. Stock moves with
+     * every order, so this skips the catalog listeners and keeps the snapshot's own version
+     * (nothing the suggest index uses changed); only an item going off sale (no variant left
+     * in stock) is published as a regular item change.
+     */
+    public void stockChanged(Map<Integer, StockLevel> levels) {
+        if (levels.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            CatalogSnapshot snapshot = current;
+            if (snapshot == null) {
+                // The first read loads stock from the database
+                catalogVersion.bump();
+                return;
+            }
+            List<Item> restocked = new ArrayList<>();
+            List<Item> soldOut = new ArrayList<>();
+            levels.forEach((itemId, level) -> {
+                Item item = snapshot.getItem(itemId);
+                if (item == null) {
+                    return;
+                }
+                Item copy = new Item();
+                BeanUtils.copyProperties(item, copy);
+                copy.setStock(level.stock());
+                copy.setEgglessStock(level.egglessStock());
+                if (!level.anyInStock() && Boolean.TRUE.equals(item.getAvailable())) {
+                    copy.setAvailable(false);
+                    soldOut.add(copy);
+                } else {
+                    restocked.add(copy);
+                }
+            });
+            if (!restocked.isEmpty()) {
+                current = snapshot.withStock(restocked);
+            }
+            if (!soldOut.isEmpty()) {
+                apply(soldOut, List.of());
+            } else {
+                catalogVersion.bump();
+            }
+        }
+    }
+
+    /**
+     * Drops the snapshot so the next read reloads it, for changes that touch many items
+     * at once (e.g. a category rename).
+     */
+    public void invalidate() {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (writeLock) {
+                current = null;
+                catalogVersion.bump();
+            }
+        });
+    }
+
+    /**
+     * Shared stock of an item and whether any of its variants has stock.
+     */
+    public record StockLevel(int stock, int egglessStock, boolean anyInStock) {
+    }
+
+    private void apply(Collection<Item> upserts, Collection<Integer> removals) {
+        synchronized (writeLock) {
+            CatalogSnapshot snapshot = current;
+            if (snapshot == null) {
+                // Nothing loaded yet, the first read will pick the change up from the database
+                catalogVersion.bump();
+                return;
+            }
+            Set<Integer> removed = new HashSet<>(removals);
+            CatalogSnapshot updated = snapshot.with(versions.incrementAndGet(), upserts, removed);
+            listeners.orderedStream().forEach(listener -> listener.catalogChanged(upserts, removed));
+            current = updated;
+            catalogVersion.bump();
+        }
+    }
+}
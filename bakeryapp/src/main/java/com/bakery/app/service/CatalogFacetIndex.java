@@ -0,0 +1,315 @@
+package com.bakery.app.service;
+
+import com.bakery.app.dto.ItemFilterRequest;
+import com.bakery.app.dto.ItemFilterResponse;
+import com.bakery.app.entity.Item;
+import com.bakery.app.util.WeightPriceTable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Per-facet bitsets over the items of one {@link CatalogSnapshot}. Bit {@code i} refers to
+ * the i-th item of the snapshot. Facet counts follow multi-select semantics: the count for a
+ * value applies every active filter except the one on that facet.
+ */
+final class CatalogFacetIndex {
+
+    private static final String CATEGORY = "category";
+    private static final String PRICE = "price";
+    private static final String EGGLESS = "eggless";
+    private static final String WEIGHT = "weight";
+    private static final String IN_STOCK = "inStock";
+
+    // Lower bounds of the price facet buckets, in rupees
+    private static final long[] PRICE_BUCKETS = {0, 250, 500, 1000, 2000};
+
+    private static final int CATEGORY_FILTER = 0;
+    private static final int PRICE_FILTER = 1;
+    private static final int EGGLESS_FILTER = 2;
+    private static final int WEIGHT_FILTER = 3;
+    private static final int STOCK_FILTER = 4;
+
+    // Sorted positions covered by each precomputed price prefix
+    private static final int PRICE_BAND = 64;
+
+    private final List<Item> items;
+    // Item positions ordered by "from" price, and those prices in paise
+    private final int[] byPrice;
+    private final long[] sortedPrices;
+    // bandPrefixes[b]: items at sorted positions below b * PRICE_BAND
+    private final BitSet[] bandPrefixes;
+    private final BitSet[] priceBuckets;
+    private final BitSet all;
+    private final Map<Integer, BitSet> categories;
+    private final Map<Integer, BitSet> weights;
+    private final BitSet eggless;
+    private final BitSet inStock;
+
+    CatalogFacetIndex(CatalogSnapshot snapshot) {
+        this.items = snapshot.getItems();
+        int size = items.size();
+        long[] prices = new long[size];
+        this.categories = new TreeMap<>();
+        this.weights = new TreeMap<>();
+        this.all = new BitSet(size);
+        this.eggless = new BitSet(size);
+        this.inStock = new BitSet(size);
+        all.set(0, size);
+
+        for (int i = 0; i < size; i++) {
+            Item item = items.get(i);
+            WeightPriceTable table = snapshot.getPriceTable(item.getId());
+            prices[i] = fromPricePaise(item, table);
+
+            if (item.getCategory() != null) {
+                categories.computeIfAbsent(item.getCategory().getId(), id -> new BitSet(size)).set(i);
+            }
+            for (int w = 0; w < table.size(); w++) {
+                weights.computeIfAbsent(table.weightAt(w), grams -> new BitSet(size)).set(i);
+            }
+            if (Boolean.TRUE.equals(item.getHasEggOption())) {
+                eggless.set(i);
+            }
+            if (isInStock(item)) {
+                inStock.set(i);
+            }
+        }
+
+        this.byPrice = IntStream.range(0, size).boxed()
+                .sorted(Comparator.comparingLong(i -> prices[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.sortedPrices = new long[size];
+        for (int p = 0; p < size; p++) {
+            sortedPrices[p] = prices[byPrice[p]];
+        }
+        this.bandPrefixes = new BitSet[size / PRICE_BAND + 1];
+        bandPrefixes[0] = new BitSet(size);
+        for (int b = 1; b < bandPrefixes.length; b++) {
+            bandPrefixes[b] = (BitSet) bandPrefixes[b - 1].clone();
+            for (int p = (b - 1) * PRICE_BAND; p < b * PRICE_BAND; p++) {
+                bandPrefixes[b].set(byPrice[p]);
+            }
+        }
+        this.priceBuckets = new BitSet[PRICE_BUCKETS.length];
+        for (int b = 0; b < PRICE_BUCKETS.length; b++) {
+            long high = b + 1 < PRICE_BUCKETS.length ? PRICE_BUCKETS[b + 1] * 100 - 1 : Long.MAX_VALUE;
+            priceBuckets[b] = priceRange(PRICE_BUCKETS[b] * 100, high);
+        }
+    }
+
+    /**
+     * Same index over restocked copies of the same items in the same order; every facet
+     * but in-stock is shared.
+     */
+    private CatalogFacetIndex(CatalogFacetIndex source, List<Item> items) {
+        this.items = items;
+        this.byPrice = source.byPrice;
+        this.sortedPrices = source.sortedPrices;
+        this.bandPrefixes = source.bandPrefixes;
+        this.priceBuckets = source.priceBuckets;
+        this.all = source.all;
+        this.categories = source.categories;
+        this.weights = source.weights;
+        this.eggless = source.eggless;
+        this.inStock = new BitSet(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (isInStock(items.get(i))) {
+                inStock.set(i);
+            }
+        }
+    }
+
+    CatalogFacetIndex withStock(List<Item> restocked) {
+        return new CatalogFacetIndex(this, restocked);
+    }
+
+    ItemFilterResponse query(ItemFilterRequest request, int limit) {
+        BitSet[] filters = new BitSet[5];
+        filters[CATEGORY_FILTER] = union(categories, request.getCategoryId());
+        filters[PRICE_FILTER] = priceFilter(request.getMinPrice(), request.getMaxPrice());
+        filters[EGGLESS_FILTER] = flagFilter(eggless, request.getEggless());
+        filters[WEIGHT_FILTER] = union(weights, toGrams(request.getWeight()));
+        filters[STOCK_FILTER] = flagFilter(inStock, request.getInStock());
+
+        BitSet matches = intersect(filters, -1);
+        List<Item> page = new ArrayList<>(Math.min(limit, matches.cardinality()));
+        for (int i = matches.nextSetBit(0); i >= 0 && page.size() < limit; i = matches.nextSetBit(i + 1)) {
+            page.add(items.get(i));
+        }
+
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put(CATEGORY, countKeyed(categories, intersect(filters, CATEGORY_FILTER), String::valueOf));
+        facets.put(PRICE, countPrices(intersect(filters, PRICE_FILTER)));
+        facets.put(EGGLESS, countFlag(eggless, intersect(filters, EGGLESS_FILTER)));
+        facets.put(WEIGHT, countKeyed(weights, intersect(filters, WEIGHT_FILTER), CatalogFacetIndex::kgLabel));
+        facets.put(IN_STOCK, countFlag(inStock, intersect(filters, STOCK_FILTER)));
+
+        return new ItemFilterResponse(page, matches.cardinality(), facets);
+    }
+
+    /**
+     * AND of all active filters, skipping the one at {@code except} (-1 to apply all).
+     */
+    private BitSet intersect(BitSet[] filters, int except) {
+        BitSet result = (BitSet) all.clone();
+        for (int f = 0; f < filters.length; f++) {
+            if (f != except && filters[f] != null) {
+                result.and(filters[f]);
+            }
+        }
+        return result;
+    }
+
+    private BitSet union(Map<Integer, BitSet> facet, List<Integer> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        BitSet result = new BitSet(items.size());
+        for (Integer key : keys) {
+            BitSet bits = facet.get(key);
+            if (bits != null) {
+                result.or(bits);
+            }
+        }
+        return result;
+    }
+
+    private BitSet flagFilter(BitSet flag, Boolean wanted) {
+        if (wanted == null) {
+            return null;
+        }
+        if (wanted) {
+            return flag;
+        }
+        BitSet result = (BitSet) all.clone();
+        result.andNot(flag);
+        return result;
+    }
+
+    private BitSet priceFilter(Double min, Double max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        long low = min != null ? (long) Math.ceil(min * 100 - 1e-6) : Long.MIN_VALUE;
+        long high = max != null ? (long) Math.floor(max * 100 + 1e-6) : Long.MAX_VALUE;
+        return priceRange(low, high);
+    }
+
+    /**
+     * Items whose "from" price lies in [low, high] paise: the difference of two sorted-position
+     * prefixes, each a precomputed band plus at most one band's worth of single bits.
+     */
+    private BitSet priceRange(long low, long high) {
+        int from = firstPriceAtLeast(low);
+        int to = high == Long.MAX_VALUE ? sortedPrices.length : firstPriceAtLeast(high + 1);
+        if (from >= to) {
+            return new BitSet(items.size());
+        }
+        BitSet result = pricePrefix(to);
+        result.andNot(pricePrefix(from));
+        return result;
+    }
+
+    private BitSet pricePrefix(int position) {
+        int band = position / PRICE_BAND;
+        BitSet prefix = (BitSet) bandPrefixes[band].clone();
+        for (int p = band * PRICE_BAND; p < position; p++) {
+            prefix.set(byPrice[p]);
+        }
+        return prefix;
+    }
+
+    private int firstPriceAtLeast(long paise) {
+        int low = 0;
+        int high = sortedPrices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid] < paise) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Map<String, Integer> countKeyed(Map<Integer, BitSet> facet, BitSet base,
+                                                   IntFunction<String> label) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<Integer, BitSet> entry : facet.entrySet()) {
+            BitSet bits = (BitSet) entry.getValue().clone();
+            bits.and(base);
+            int count = bits.cardinality();
+            if (count > 0) {
+                counts.put(label.apply(entry.getKey()), count);
+            }
+        }
+        return counts;
+    }
+
+    private static Map<String, Integer> countFlag(BitSet flag, BitSet base) {
+        BitSet bits = (BitSet) flag.clone();
+        bits.and(base);
+        int yes = bits.cardinality();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("true", yes);
+        counts.put("false", base.cardinality() - yes);
+        return counts;
+    }
+
+    private Map<String, Integer> countPrices(BitSet base) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int b = 0; b < PRICE_BUCKETS.length; b++) {
+            String label = b + 1 < PRICE_BUCKETS.length
+                    ? PRICE_BUCKETS[b] + "-" + PRICE_BUCKETS[b + 1]
+                    : PRICE_BUCKETS[b] + "+";
+            BitSet bits = (BitSet) priceBuckets[b].clone();
+            bits.and(base);
+            result.put(label, bits.cardinality());
+        }
+        return result;
+    }
+
+    private static boolean isInStock(Item item) {
+        boolean regularInStock = item.getStock() != null && item.getStock() > 0;
+        boolean egglessInStock = Boolean.TRUE.equals(item.getHasEggOption())
+                && item.getEgglessStock() != null && item.getEgglessStock() > 0;
+        return Boolean.TRUE.equals(item.getAvailable()) && (regularInStock || egglessInStock);
+    }
+
+    /**
+     * Cakes are listed "from" their cheapest weight (not necessarily the lightest);
+     * everything else at its item price.
+     */
+    private static long fromPricePaise(Item item, WeightPriceTable table) {
+        if (!table.isEmpty()) {
+            long cheapest = Long.MAX_VALUE;
+            for (int w = 0; w < table.size(); w++) {
+                cheapest = Math.min(cheapest, table.priceInPaise(table.weightAt(w)).getAsLong());
+            }
+            return cheapest;
+        }
+        return item.getPrice() != null ? Math.round(item.getPrice() * 100) : 0L;
+    }
+
+    private static List<Integer> toGrams(List<Double> kgs) {
+        if (kgs == null) {
+            return null;
+        }
+        return kgs.stream().map(WeightPriceTable::toGrams).toList();
+    }
+
+    private static String kgLabel(int grams) {
+        return BigDecimal.valueOf(grams, 3).stripTrailingZeros().toPlainString();
+    }
+}
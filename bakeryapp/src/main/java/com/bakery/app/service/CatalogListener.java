@@ -0,0 +1,19 @@
+package com.bakery.app.service;
+
+import com.bakery.app.entity.Item;
+
+import java.util.Collection;
+
+/**
+ * Receives committed catalog changes from {@link CatalogCache}. Callbacks run while the
+ * cache holds its write lock, so implementations see changes in commit order.
+ */
+public interface CatalogListener {
+
+    /**
+     * Called whenever the full catalog is (re)loaded from the database.
+     */
+    void catalogLoaded(Collection<Item> items);
+
+    void catalogChanged(Collection<Item> upserts, Collection<Integer> removals);
+}
@@ -0,0 +1,91 @@
+package com.bakery.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the encoded UTF-8 JSON (and its gzip form) of hot catalog responses per endpoint
+ * and {@link CatalogVersion} ETag, so unchanged data is written out without touching Jackson.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogResponseCache {
+    
+    // Rebuilds attempted while the catalog keeps changing under the body
+    private static final int MAX_ATTEMPTS = 3;
+    
+    private final ObjectMapper objectMapper;
+    private final CatalogVersion catalogVersion;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    
+    /**
+     * Returns the cached bytes for {@code key} if they were built for the current catalog
+     * version, otherwise serializes {@code body} and caches the result. The body is only paired
+     * with an ETag when the version did not move while it was built. Data is published before
+     * the version is bumped, so a body is never older than the ETag it is served with.
+     */
+    public ResponseEntity<byte[]> respond(String key, String acceptEncoding, Supplier<Object> body) {
+        Entry entry = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && entry == null; attempt++) {
+            String etag = catalogVersion.etag();
+            Entry cached = entries.get(key);
+            if (cached != null && cached.etag().equals(etag)) {
+                entry = cached;
+            } else {
+                Entry built = encode(etag, body.get());
+                if (etag.equals(catalogVersion.etag())) {
+                    entries.put(key, built);
+                    entry = built;
+                }
+            }
+        }
+        if (entry == null) {
+            // Still changing: serve the latest body, but without an ETag a client could revalidate against
+            entry = encode(null, body.get());
+        }
+        
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        byte[] bytes = gzip ? entry.gzip() : entry.json();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (entry.etag() != null) {
+            builder.eTag(entry.etag());
+        }
+        builder.cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(bytes.length)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(bytes);
+    }
+    
+    private Entry encode(String etag, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                out.write(json);
+            }
+            return new Entry(etag, json, buffer.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode catalog response", e);
+        }
+    }
+    
+    private record Entry(String etag, byte[] json, byte[] gzip) {
+    }
+}
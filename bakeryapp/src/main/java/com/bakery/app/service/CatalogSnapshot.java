@@ -0,0 +1,141 @@
+package com.bakery.app.service;
+
+import com.bakery.app.entity.Item;
+import com.bakery.app.util.WeightPriceTable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, versioned view of the catalog used to serve storefront reads.
+ * A new snapshot is built for every committed item change and published by {@link CatalogCache}.
+ */
+public final class CatalogSnapshot {
+
+    private final long version;
+    private final List<Item> items;
+    private final Map<Integer, Item> itemsById;
+    private final Map<Integer, List<Item>> itemsByCategory;
+    private final List<Item> featuredItems;
+    private final Map<Integer, WeightPriceTable> priceTables;
+    private volatile CatalogFacetIndex facetIndex;
+
+    CatalogSnapshot(long version, Collection<Item> source) {
+        this(version, source, Collections.emptyMap());
+    }
+
+    private CatalogSnapshot(long version, Collection<Item> source, Map<Integer, WeightPriceTable> previousTables) {
+        List<Item> sorted = new ArrayList<>(source);
+        sorted.sort(Comparator.comparing(Item::getId));
+
+        Map<Integer, Item> byId = new HashMap<>(sorted.size() * 2);
+        Map<Integer, List<Item>> byCategory = new LinkedHashMap<>();
+        List<Item> featured = new ArrayList<>();
+        Map<Integer, WeightPriceTable> tables = new HashMap<>();
+        for (Item item : sorted) {
+            byId.put(item.getId(), item);
+            WeightPriceTable table = compilePriceTable(item, previousTables.get(item.getId()));
+            if (!table.isEmpty()) {
+                tables.put(item.getId(), table);
+            }
+            if (item.getCategory() != null) {
+                byCategory.computeIfAbsent(item.getCategory().getId(), id -> new ArrayList<>()).add(item);
+            }
+            if (Boolean.TRUE.equals(item.getFeatured()) && Boolean.TRUE.equals(item.getAvailable())) {
+                featured.add(item);
+            }
+        }
+        byCategory.replaceAll((id, list) -> Collections.unmodifiableList(list));
+
+        this.version = version;
+        this.items = Collections.unmodifiableList(sorted);
+        this.itemsById = Collections.unmodifiableMap(byId);
+        this.itemsByCategory = Collections.unmodifiableMap(byCategory);
+        this.featuredItems = Collections.unmodifiableList(featured);
+        this.priceTables = Collections.unmodifiableMap(tables);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public Item getItem(Integer id) {
+        return itemsById.get(id);
+    }
+
+    public List<Item> getItemsByCategory(Integer categoryId) {
+        return itemsByCategory.getOrDefault(categoryId, Collections.emptyList());
+    }
+
+    public List<Item> getFeaturedItems() {
+        return featuredItems;
+    }
+
+    /**
+     * Weight pricing compiled from the item's pricePerKg, or {@link WeightPriceTable#EMPTY}.
+     */
+    public WeightPriceTable getPriceTable(Integer itemId) {
+        return priceTables.getOrDefault(itemId, WeightPriceTable.EMPTY);
+    }
+
+    /**
+     * Facet bitsets for this snapshot, built on first use.
+     */
+    CatalogFacetIndex facetIndex() {
+        CatalogFacetIndex index = facetIndex;
+        if (index == null) {
+            index = new CatalogFacetIndex(this);
+            facetIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Copy of this snapshot with the given items inserted or replaced and the given ids removed.
+     */
+    CatalogSnapshot with(long newVersion, Collection<Item> upserts, Collection<Integer> removals) {
+        Map<Integer, Item> merged = new HashMap<>(itemsById);
+        removals.forEach(merged::remove);
+        upserts.forEach(item -> merged.put(item.getId(), item));
+        return new CatalogSnapshot(newVersion, merged.values(), priceTables);
+    }
+
+    /**
+     * Copy of this snapshot under the same snapshot version with the given items' stock replaced.
+     * Nothing but stock differs, so the facet index carries over with only its in-stock
+     * facet recomputed.
+     */
+    CatalogSnapshot withStock(Collection<Item> restocked) {
+        Map<Integer, Item> merged = new HashMap<>(itemsById);
+        restocked.forEach(item -> merged.put(item.getId(), item));
+        CatalogSnapshot updated = new CatalogSnapshot(version, merged.values(), priceTables);
+        CatalogFacetIndex index = facetIndex;
+        if (index != null) {
+            updated.facetIndex = index.withStock(updated.items);
+        }
+        return updated;
+    }
+
+    private static WeightPriceTable compilePriceTable(Item item, WeightPriceTable previous) {
+        // Reuse the compiled table while the item's pricing JSON is unchanged
+        if (previous != null && previous.isCompiledFrom(item.getPricePerKg())) {
+            return previous;
+        }
+        try {
+            return WeightPriceTable.parse(item.getPricePerKg());
+        } catch (IllegalArgumentException e) {
+            // Legacy rows may hold malformed JSON; such items simply have no weight options
+            return WeightPriceTable.EMPTY;
+        }
+    }
+}
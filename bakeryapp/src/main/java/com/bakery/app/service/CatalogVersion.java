@@ -0,0 +1,57 @@
+package com.bakery.app.service;
+
+import com.bakery.app.util.TransactionHooks;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counter for everything the storefront caches: items, categories and carousel slides.
+ * It is bumped after every committed write and exposed to clients as a strong ETag.
+ */
+@Component
+public class CatalogVersion {
+    
+    // Distinguishes counters across restarts so an ETag from an old process never matches
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong(1);
+    
+    public long current() {
+        return version.get();
+    }
+    
+    public String etag() {
+        return "\"" + epoch + "-" + version.get() + "\"";
+    }
+    
+    /**
+     * Bumps the version once the current transaction commits. Callers that publish cached
+     * data must do so before bumping, so a new ETag is never paired with old data.
+     */
+    public void bumpAfterCommit() {
+        TransactionHooks.afterCommit(version::incrementAndGet);
+    }
+    
+    void bump() {
+        version.incrementAndGet();
+    }
+    
+    /**
+     * True if an If-None-Match header value lists the given ETag.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -12,11 +12,15 @@ import java.util.List;
 public class CategoryService {
     
     private final CategoryRepository categoryRepository;
+    private final CatalogCache catalogCache;
+    private final CatalogVersion catalogVersion;
     
     public Category createCategory(String name) {
         Category category = new Category();
         category.setName(name);
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        catalogVersion.bumpAfterCommit();
+        return savedCategory;
     }
     
     public List<Category> getAllCategories() {
@@ -31,10 +35,14 @@ public class CategoryService {
     public Category updateCategory(Integer id, String name) {
         Category category = getCategoryById(id);
         category.setName(name);
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        // Items embed their category, so a rename invalidates the whole catalog snapshot
+        catalogCache.invalidate();
+        return savedCategory;
     }
     
     public void deleteCategory(Integer id) {
         categoryRepository.deleteById(id);
+        catalogCache.invalidate();
     }
 }
@@ -0,0 +1,246 @@
+package com.bakery.app.service;
+
+import com.bakery.app.dto.CartItemRequest;
+import com.bakery.app.dto.CartOperation;
+import com.bakery.app.dto.CartSummary;
+import com.bakery.app.dto.GuestCartResponse;
+import com.bakery.app.entity.CartItem;
+import com.bakery.app.entity.Item;
+import com.bakery.app.service.GuestCartStore.GuestCartLine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Carts for shoppers who have not logged in. They live only in {@link GuestCartStore},
+ * keyed by a random id carried in an HMAC-signed cookie, and read items and stock from the
+ * in-memory catalog and ledger, so guest browsing never reaches the database. On login or
+ * registration the guest cart is merged into the customer's cart.
+ */
+@Service
+public class GuestCartService {
+
+    public static final String COOKIE = "GUEST_CART";
+
+    private static final Logger logger = LoggerFactory.getLogger(GuestCartService.class);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final GuestCartStore store;
+    private final CatalogCache catalogCache;
+    private final PricingService pricingService;
+    private final StockReservationService stockReservationService;
+    private final CartService cartService;
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    public GuestCartService(GuestCartStore store,
+                            CatalogCache catalogCache,
+                            PricingService pricingService,
+                            StockReservationService stockReservationService,
+                            CartService cartService,
+                            @Value("${guest-cart.secret:${jwt.secret:mySecretKeyForBakeryAppThatIsAtLeast256BitsLongForHS256Algorithm}}") String secret) {
+        this.store = store;
+        this.catalogCache = catalogCache;
+        this.pricingService = pricingService;
+        this.stockReservationService = stockReservationService;
+        this.cartService = cartService;
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    }
+
+    /**
+     * The guest id from a cookie value, or null if it is missing or its signature does not match.
+     */
+    public String idFrom(String cookie) {
+        if (cookie == null) {
+            return null;
+        }
+        int dot = cookie.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String id = cookie.substring(0, dot);
+        byte[] expected = sign(id).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = cookie.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, actual) ? id : null;
+    }
+
+    public String newId() {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        return ENCODER.encodeToString(bytes);
+    }
+
+    public ResponseCookie cookie(String id) {
+        return ResponseCookie.from(COOKIE, id + "." + sign(id))
+                .httpOnly(true)
+                .sameSite("Lax")
+                .path("/api")
+                .maxAge(Duration.ofMillis(store.idleMillis()))
+                .build();
+    }
+
+    public ResponseCookie expiredCookie() {
+        return ResponseCookie.from(COOKIE, "").httpOnly(true).sameSite("Lax").path("/api").maxAge(0).build();
+    }
+
+    public GuestCartResponse getCart(String id) {
+        List<GuestCartLine> lines = id != null ? store.update(id, false, GuestCartStore.GuestCart::lines) : null;
+        return view(lines != null ? lines : List.of());
+    }
+
+    public GuestCartResponse addItem(String id, CartItemRequest request) {
+        if (request.getItemId() == null || request.getQuantity() == null || request.getQuantity() <= 0) {
+            throw new RuntimeException("Item id and a positive quantity are required");
+        }
+        Item item = catalogCache.snapshot().getItem(request.getItemId());
+        if (item == null) {
+            throw new RuntimeException("Item not found with id: " + request.getItemId());
+        }
+        if (!item.getAvailable()) {
+            throw new RuntimeException("Item '" + item.getName() + "' is currently unavailable");
+        }
+        // Rejects weights the item is not sold in
+        pricingService.unitPriceInPaise(item, request.getEggType(), request.getSelectedWeight());
+
+        return view(store.update(id, true, cart -> {
+            GuestCartLine existing = cart.find(item.getId(), request.getEggType(), request.getSelectedWeight());
+            int quantity = request.getQuantity() + (existing != null ? existing.quantity() : 0);
+            checkStock(item, request.getEggType(), request.getSelectedWeight(), quantity);
+            cart.put(item.getId(), quantity, request.getEggType(), request.getSelectedWeight());
+            return cart.lines();
+        }));
+    }
+
+    public GuestCartResponse updateItem(String id, int lineId, int quantity) {
+        List<GuestCartLine> lines = store.update(id, false, cart -> {
+            GuestCartLine line = cart.get(lineId);
+            if (quantity > 0) {
+                Item item = catalogCache.snapshot().getItem(line.itemId());
+                if (item == null) {
+                    throw new RuntimeException("Item not found with id: " + line.itemId());
+                }
+                checkStock(item, line.eggType(), line.selectedWeight(), quantity);
+            }
+            cart.setQuantity(lineId, quantity);
+            return cart.lines();
+        });
+        if (lines == null) {
+            throw new RuntimeException("Cart item not found with id: " + lineId);
+        }
+        return view(lines);
+    }
+
+    public GuestCartResponse removeItem(String id, int lineId) {
+        List<GuestCartLine> lines = store.update(id, false, cart -> {
+            cart.remove(lineId);
+            return cart.lines();
+        });
+        if (lines == null) {
+            throw new RuntimeException("Cart item not found with id: " + lineId);
+        }
+        return view(lines);
+    }
+
+    /**
+     * Moves the guest's cart into the customer's cart, in one batch when every line still
+     * fits, otherwise line by line, skipping lines that no longer can be added.
+     *
+     * @return number of lines merged
+     */
+    public int mergeInto(Integer customerId, String id) {
+        if (id == null) {
+            return 0;
+        }
+        List<GuestCartLine> lines = store.remove(id);
+        if (lines.isEmpty()) {
+            return 0;
+        }
+        List<CartOperation> operations = lines.stream()
+                .map(line -> new CartOperation("add", null, line.itemId(), line.quantity(),
+                        line.eggType(), line.selectedWeight()))
+                .toList();
+        try {
+            cartService.applyBatch(customerId, operations);
+            return lines.size();
+        } catch (RuntimeException e) {
+            logger.info("Merging guest cart for customer {} line by line: {}", customerId, e.getMessage());
+        }
+        int merged = 0;
+        for (GuestCartLine line : lines) {
+            CartItemRequest request = new CartItemRequest();
+            request.setItemId(line.itemId());
+            request.setQuantity(line.quantity());
+            request.setEggType(line.eggType());
+            request.setSelectedWeight(line.selectedWeight());
+            try {
+                cartService.addItemToCart(customerId, request);
+                merged++;
+            } catch (RuntimeException e) {
+                logger.info("Skipped guest cart line for item {}: {}", line.itemId(), e.getMessage());
+            }
+        }
+        return merged;
+    }
+
+    private void checkStock(Item item, String eggType, Double selectedWeight, int quantity) {
+        int availableStock = Math.max(0, stockReservationService.availableStock(item.getId(), eggType, selectedWeight));
+        if (availableStock < quantity) {
+            throw new RuntimeException("Insufficient stock for item: " + item.getName() +
+                                     ". Available: " + availableStock +
+                                     ", Requested: " + quantity);
+        }
+    }
+
+    /**
+     * Prices the lines at current prices; lines whose item or weight is gone are left out.
+     */
+    private GuestCartResponse view(List<GuestCartLine> lines) {
+        CatalogSnapshot snapshot = catalogCache.snapshot();
+        List<CartItem> items = new ArrayList<>(lines.size());
+        long subtotal = 0;
+        long surcharge = 0;
+        int count = 0;
+        for (GuestCartLine line : lines) {
+            Item item = snapshot.getItem(line.itemId());
+            if (item == null) {
+                continue;
+            }
+            long unitPaise;
+            try {
+                unitPaise = pricingService.unitPriceInPaise(item, line.eggType(), line.selectedWeight());
+            } catch (RuntimeException e) {
+                continue;
+            }
+            long lineSurcharge = "EGGLESS".equals(line.eggType()) ? PricingService.EGGLESS_SURCHARGE_PAISE : 0;
+            subtotal += (unitPaise - lineSurcharge) * line.quantity();
+            surcharge += lineSurcharge * line.quantity();
+            count += line.quantity();
+            items.add(new CartItem(line.id(), null, item, line.quantity(), line.eggType(),
+                    line.selectedWeight(), unitPaise / 100.0));
+        }
+        return new GuestCartResponse(items, CartSummary.of(subtotal, surcharge, items.size(), count));
+    }
+
+    private String sign(String id) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return ENCODER.encodeToString(mac.doFinal(id.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign guest cart id", e);
+        }
+    }
+}
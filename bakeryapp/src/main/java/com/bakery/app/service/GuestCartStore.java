@@ -0,0 +1,210 @@
+package com.bakery.app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Guest carts, kept in memory only. Carts are spread over shards by id, each an
+ * access-ordered map behind its own lock, so guests rarely contend. A shard drops its least
+ * recently used cart when full, and carts idle past the timeout are dropped on access and
+ * by a periodic sweep.
+ */
+@Component
+public class GuestCartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(GuestCartStore.class);
+
+    private final Shard[] shards;
+    private final int maxLines;
+    private final long idleMillis;
+
+    public GuestCartStore(@Value("${guest-cart.shards:16}") int shardCount,
+                          @Value("${guest-cart.max-carts:50000}") int maxCarts,
+                          @Value("${guest-cart.max-lines:30}") int maxLines,
+                          @Value("${guest-cart.idle-minutes:120}") long idleMinutes) {
+        this.shards = new Shard[shardCount];
+        int perShard = Math.max(1, maxCarts / shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(perShard);
+        }
+        this.maxLines = maxLines;
+        this.idleMillis = idleMinutes * 60_000;
+    }
+
+    public long idleMillis() {
+        return idleMillis;
+    }
+
+    /**
+     * Runs the action on the guest's cart under its shard's lock.
+     *
+     * @param create whether to start an empty cart when there is none
+     * @return the action's result, or null if there is no cart and {@code create} is false
+     */
+    public <T> T update(String id, boolean create, Function<GuestCart, T> action) {
+        Shard shard = shardFor(id);
+        synchronized (shard) {
+            long now = System.currentTimeMillis();
+            GuestCart cart = shard.carts.get(id);
+            if (cart != null && cart.lastAccess + idleMillis <= now) {
+                shard.carts.remove(id);
+                cart = null;
+            }
+            if (cart == null) {
+                if (!create) {
+                    return null;
+                }
+                cart = new GuestCart(maxLines);
+                shard.carts.put(id, cart);
+            }
+            cart.lastAccess = now;
+            return action.apply(cart);
+        }
+    }
+
+    /**
+     * Takes the guest's cart out of the store, e.g. to merge it on login.
+     *
+     * @return its lines, empty if there was no live cart
+     */
+    public List<GuestCartLine> remove(String id) {
+        Shard shard = shardFor(id);
+        synchronized (shard) {
+            GuestCart cart = shard.carts.remove(id);
+            if (cart == null || cart.lastAccess + idleMillis <= System.currentTimeMillis()) {
+                return List.of();
+            }
+            return cart.lines();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.carts.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Drops idle carts. Shards are in access order, so each scan stops at the first live cart.
+     */
+    @Scheduled(fixedDelayString = "${guest-cart.sweep-ms:60000}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        int dropped = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                Iterator<GuestCart> it = shard.carts.values().iterator();
+                while (it.hasNext() && it.next().lastAccess <= cutoff) {
+                    it.remove();
+                    dropped++;
+                }
+            }
+        }
+        if (dropped > 0) {
+            logger.info("Dropped {} idle guest cart(s)", dropped);
+        }
+    }
+
+    private Shard shardFor(String id) {
+        return shards[Math.floorMod(id.hashCode(), shards.length)];
+    }
+
+    private static final class Shard {
+
+        private final LinkedHashMap<String, GuestCart> carts;
+
+        private Shard(int capacity) {
+            this.carts = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, GuestCart> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+
+    public record GuestCartLine(int id, int itemId, int quantity, String eggType, Double selectedWeight) {
+    }
+
+    /**
+     * One guest's lines. Only changed through {@link #update}, under the shard lock.
+     */
+    public static final class GuestCart {
+
+        private final int maxLines;
+        private final List<GuestCartLine> lines = new ArrayList<>();
+        private int nextLineId = 1;
+        private long lastAccess;
+
+        private GuestCart(int maxLines) {
+            this.maxLines = maxLines;
+        }
+
+        public List<GuestCartLine> lines() {
+            return List.copyOf(lines);
+        }
+
+        public GuestCartLine find(int itemId, String eggType, Double selectedWeight) {
+            for (GuestCartLine line : lines) {
+                if (line.itemId() == itemId && Objects.equals(line.eggType(), eggType)
+                        && Objects.equals(line.selectedWeight(), selectedWeight)) {
+                    return line;
+                }
+            }
+            return null;
+        }
+
+        public GuestCartLine get(int lineId) {
+            for (GuestCartLine line : lines) {
+                if (line.id() == lineId) {
+                    return line;
+                }
+            }
+            throw new RuntimeException("Cart item not found with id: " + lineId);
+        }
+
+        /**
+         * Adds a line, or replaces the line with the same item, egg type and weight.
+         */
+        public void put(int itemId, int quantity, String eggType, Double selectedWeight) {
+            GuestCartLine existing = find(itemId, eggType, selectedWeight);
+            if (existing != null) {
+                lines.set(lines.indexOf(existing), new GuestCartLine(existing.id(), itemId, quantity, eggType, selectedWeight));
+                return;
+            }
+            if (lines.size() >= maxLines) {
+                throw new RuntimeException("A guest cart can hold at most " + maxLines + " different items");
+            }
+            lines.add(new GuestCartLine(nextLineId++, itemId, quantity, eggType, selectedWeight));
+        }
+
+        public void setQuantity(int lineId, int quantity) {
+            GuestCartLine line = get(lineId);
+            if (quantity <= 0) {
+                lines.remove(line);
+            } else {
+                lines.set(lines.indexOf(line), new GuestCartLine(line.id(), line.itemId(), quantity,
+                        line.eggType(), line.selectedWeight()));
+            }
+        }
+
+        public void remove(int lineId) {
+            lines.remove(get(lineId));
+        }
+    }
+}
@@ -0,0 +1,713 @@
+package com.bakery.app.service;
+
+import com.bakery.app.dto.StockDeduction;
+import com.bakery.app.entity.Item;
+import com.bakery.app.entity.StockMovement;
+import com.bakery.app.entity.StockSnapshot;
+import com.bakery.app.entity.VariantStock;
+import com.bakery.app.repository.ItemStockRepository;
+import com.bakery.app.repository.StockJournalRepository;
+import com.bakery.app.repository.VariantStockRepository;
+import com.bakery.app.util.TransactionHooks;
+import com.bakery.app.util.VariantKey;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory owner of the live stock counts, one slot per {@link VariantStock} row indexed
+ * by its packed {@link VariantKey}. A line for a weight without its own row draws from the
+ * item's shared (weight 0) row. Checks and deductions run against memory under striped
+ * locks, so reads never wait for the database.
+ * <p>
+ * Order deductions are written to variant_stock inside the order's own transaction, just
+ * before it commits. Other changes are queued once their transaction commits and written
+ * back as net deltas in batched transactions every few hundred milliseconds. Either way the
+ * items table's stock columns are refreshed from the shared rows in the same transaction,
+ * and a rolled-back change only ever touches memory.
+ * <p>
+ * Entity saves never write the stock columns (they are not updatable on {@link Item}),
+ * so every stock change must go through this ledger. Each change is also recorded as a
+ * {@link StockMovement}; movements are inserted in the same transaction as the row update
+ * they describe, so the journal always matches the table.
+ */
+@Component
+public class InventoryLedger implements CatalogListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryLedger.class);
+
+    private static final int STRIPES = 64;
+
+    // StockMovement reasons
+    public static final String ORDER = "ORDER";
+    public static final String ORDER_CANCELLED = "ORDER_CANCELLED";
+    public static final String ADMIN_ADD = "ADMIN_ADD";
+    public static final String ADMIN_SUBTRACT = "ADMIN_SUBTRACT";
+    public static final String ADMIN_SET = "ADMIN_SET";
+    public static final String ITEM_EDIT = "ITEM_EDIT";
+
+    private final ItemStockRepository itemStockRepository;
+    private final VariantStockRepository variantStockRepository;
+    private final StockJournalRepository stockJournalRepository;
+    private final CatalogCache catalogCache;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+    private final ObjectProvider<StockListener> stockListeners;
+    private volatile List<StockListener> listeners;
+
+    // VariantKey -> slot
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+    // Items whose variant rows have been loaded
+    private final Set<Integer> loadedItems = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final Object flushLock = new Object();
+    // Held shared by order transactions from their stock write until they end
+    private final ReentrantReadWriteLock orderWrites = new ReentrantReadWriteLock();
+
+    public InventoryLedger(ItemStockRepository itemStockRepository,
+                           VariantStockRepository variantStockRepository,
+                           StockJournalRepository stockJournalRepository,
+                           CatalogCache catalogCache,
+                           TransactionTemplate transactionTemplate,
+                           ObjectProvider<StockListener> stockListeners) {
+        this.itemStockRepository = itemStockRepository;
+        this.variantStockRepository = variantStockRepository;
+        this.stockJournalRepository = stockJournalRepository;
+        this.catalogCache = catalogCache;
+        this.transactionTemplate = transactionTemplate;
+        this.stockListeners = stockListeners;
+        this.newTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Gives items that predate variant_stock their shared rows before anything reads stock.
+     */
+    @PostConstruct
+    public void backfillVariants() {
+        Integer created = transactionTemplate.execute(status -> itemStockRepository.backfillVariants());
+        if (created != null && created > 0) {
+            logger.info("Created {} variant stock row(s) from the items table", created);
+        }
+    }
+
+    /**
+     * Current stock of the item's shared variant, or 0 for unknown items. Lock-free.
+     */
+    public int stock(Integer itemId, String eggType) {
+        return stock(itemId, eggType, null);
+    }
+
+    /**
+     * Current stock a line of this egg type and weight draws from, or 0 for unknown items. Lock-free.
+     */
+    public int stock(Integer itemId, String eggType, Double weightKg) {
+        Slot slot = resolve(itemId, VariantKey.isEggless(eggType), VariantKey.grams(weightKg));
+        return slot != null ? slot.onHand : 0;
+    }
+
+    /**
+     * {@link VariantKey} of the stock a line of this egg type and weight draws from.
+     */
+    public long resolveKey(Integer itemId, String eggType, Double weightKg) {
+        boolean eggless = VariantKey.isEggless(eggType);
+        Slot slot = resolve(itemId, eggless, VariantKey.grams(weightKg));
+        return slot != null ? slot.key : VariantKey.of(itemId, eggless, 0);
+    }
+
+    /**
+     * Rewrites each line's weight to the variant it actually draws from, so lines for a size
+     * without its own row share a key with the item's other shared-stock lines.
+     */
+    public List<StockDeduction> resolve(List<StockDeduction> lines) {
+        List<StockDeduction> resolved = new ArrayList<>(lines.size());
+        for (StockDeduction line : lines) {
+            Slot slot = resolve(line.getItemId(), line.isEggless(), VariantKey.grams(line.getSelectedWeight()));
+            resolved.add(slot == null ? line : new StockDeduction(line.getItemId(), line.getEggType(),
+                    line.getQuantity(), VariantKey.kilograms(slot.weightGrams)));
+        }
+        return resolved;
+    }
+
+    /**
+     * Live stock of every variant, for reports.
+     */
+    public List<VariantStock> variants() {
+        catalogCache.snapshot();
+        List<VariantStock> variants = new ArrayList<>(slots.size());
+        for (Slot slot : slots.values()) {
+            variants.add(new VariantStock(null, slot.itemId, VariantKey.variant(slot.eggless),
+                    slot.weightGrams, slot.onHand));
+        }
+        return variants;
+    }
+
+    /**
+     * Gives an item its own stock row for the egg type and weight, starting at zero.
+     * Lines for that weight stop drawing from the shared stock once it exists.
+     */
+    public void addVariant(Integer itemId, String eggType, Double weightKg) {
+        long key = VariantKey.of(itemId, eggType, weightKg);
+        if (slot(key) != null) {
+            return;
+        }
+        if (catalogCache.snapshot().getItem(itemId) == null) {
+            throw new RuntimeException("Item not found with id: " + itemId);
+        }
+        // Committed on its own so the slot never outlives a rolled-back row
+        newTransaction.executeWithoutResult(status -> {
+            if (itemStockRepository.insertVariant(key)) {
+                stockJournalRepository.insertSnapshot(new StockSnapshot(null, itemId,
+                        VariantKey.variant(VariantKey.eggless(key)), VariantKey.weightGrams(key), 0, 0L,
+                        LocalDateTime.now()));
+            }
+        });
+        track(new Slot(key, itemStockRepository.currentStock(key)));
+    }
+
+    /**
+     * Deducts all lines or none. Throws if any line lacks stock. Inside a transaction the rows
+     * are written just before it commits, and a rollback returns the deduction to stock.
+     */
+    public void deduct(List<StockDeduction> lines, String reason, Integer orderId) {
+        List<StockDeduction> merged = StockDeduction.merge(resolve(lines));
+        List<Slot> targets = new ArrayList<>(merged.size());
+        for (StockDeduction line : merged) {
+            Slot slot = slot(line.variantKey());
+            if (slot == null) {
+                throw new RuntimeException("Item not found with id: " + line.getItemId());
+            }
+            targets.add(slot);
+        }
+
+        List<Change> changes = new ArrayList<>(merged.size());
+        Collection<ReentrantLock> locks = lockAll(targets);
+        try {
+            for (int i = 0; i < merged.size(); i++) {
+                if (targets.get(i).onHand < merged.get(i).getQuantity()) {
+                    throw insufficient(merged.get(i), targets.get(i).onHand, catalogCache.snapshot());
+                }
+            }
+            for (int i = 0; i < merged.size(); i++) {
+                Slot slot = targets.get(i);
+                int delta = -merged.get(i).getQuantity();
+                slot.hold(delta);
+                changes.add(new Change(slot, delta, slot.movement(delta, reason, orderId)));
+            }
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
+
+        if (TransactionHooks.inTransaction()) {
+            writeBeforeCommit(changes, merged);
+        } else {
+            queueAfterCommit(changes);
+        }
+    }
+
+    public int adjust(Integer itemId, String eggType, int delta, String reason, Integer orderId) {
+        return adjust(itemId, eggType, null, delta, reason, orderId);
+    }
+
+    /**
+     * Adds {@code delta} (may be negative) to the stock the weight draws from and returns the
+     * new value. Throws if the result would be negative.
+     */
+    public int adjust(Integer itemId, String eggType, Double weightKg, int delta, String reason, Integer orderId) {
+        Slot slot = requireSlot(itemId, eggType, weightKg);
+        ReentrantLock lock = stripeFor(slot);
+        lock.lock();
+        try {
+            if (slot.onHand + delta < 0) {
+                throw new RuntimeException("Stock cannot be negative");
+            }
+            slot.hold(delta);
+        } finally {
+            lock.unlock();
+        }
+        if (delta != 0) {
+            queueAfterCommit(List.of(new Change(slot, delta, slot.movement(delta, reason, orderId))));
+        }
+        return slot.onHand;
+    }
+
+    public int set(Integer itemId, String eggType, int value, String reason) {
+        return set(itemId, eggType, null, value, reason);
+    }
+
+    /**
+     * Sets the stock the weight draws from to an absolute value and returns the applied delta.
+     */
+    public int set(Integer itemId, String eggType, Double weightKg, int value, String reason) {
+        if (value < 0) {
+            throw new RuntimeException("Stock cannot be negative");
+        }
+        Slot slot = requireSlot(itemId, eggType, weightKg);
+        int delta;
+        ReentrantLock lock = stripeFor(slot);
+        lock.lock();
+        try {
+            delta = value - slot.onHand;
+            slot.hold(delta);
+        } finally {
+            lock.unlock();
+        }
+        if (delta != 0) {
+            queueAfterCommit(List.of(new Change(slot, delta, slot.movement(delta, reason, null))));
+        }
+        return delta;
+    }
+
+    @Override
+    public void catalogLoaded(Collection<Item> items) {
+        // Slots already held here are ahead of the database by their pending delta; keep them
+        Set<Integer> present = new HashSet<>();
+        items.forEach(item -> present.add(item.getId()));
+        for (VariantStock row : variantStockRepository.findAll()) {
+            if (present.contains(row.getItemId())) {
+                seed(row);
+            }
+        }
+        slots.values().removeIf(slot -> !present.contains(slot.itemId));
+        loadedItems.retainAll(present);
+        loadedItems.addAll(present);
+    }
+
+    @Override
+    public void catalogChanged(Collection<Item> upserts, Collection<Integer> removals) {
+        slots.values().removeIf(slot -> removals.contains(slot.itemId));
+        loadedItems.removeAll(removals);
+        // Only new items need their rows read; known ones are already tracked here
+        Set<Integer> added = new HashSet<>();
+        for (Item item : upserts) {
+            if (!loadedItems.contains(item.getId())) {
+                added.add(item.getId());
+            }
+        }
+        if (!added.isEmpty()) {
+            variantStockRepository.findByItemIdIn(added).forEach(this::seed);
+            loadedItems.addAll(added);
+        }
+    }
+
+    /**
+     * Writes the net committed change of every dirty slot to variant_stock, with its movements.
+     */
+    @Scheduled(fixedDelayString = "${inventory.flush-ms:500}")
+    public void flush() {
+        synchronized (flushLock) {
+            List<Slot> dirty = new ArrayList<>();
+            List<Pending> drained = new ArrayList<>();
+            for (Slot slot : slots.values()) {
+                Pending pending = drain(slot);
+                if (pending != null) {
+                    dirty.add(slot);
+                    drained.add(pending);
+                }
+            }
+            if (dirty.isEmpty()) {
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeDeltas(dirty, drained));
+            } catch (RuntimeException e) {
+                // Keep the changes pending; the next flush retries them
+                for (int i = 0; i < dirty.size(); i++) {
+                    restorePending(dirty.get(i), drained.get(i));
+                }
+                logger.error("Failed to flush {} stock change(s): {}", dirty.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Runs the action while no flush and no order's stock write is in progress, so the stock
+     * tables and the movement journal are in a consistent state for its duration.
+     */
+    public void whileWritesPaused(Runnable action) {
+        synchronized (flushLock) {
+            orderWrites.writeLock().lock();
+            try {
+                action.run();
+            } finally {
+                orderWrites.writeLock().unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void writeDeltas(List<Slot> dirty, List<Pending> drained) {
+        // Movements that net to zero still get journaled, but need no column update
+        List<Integer> updates = new ArrayList<>();
+        List<Long> keys = new ArrayList<>();
+        List<Integer> amounts = new ArrayList<>();
+        for (int i = 0; i < dirty.size(); i++) {
+            if (drained.get(i).delta() != 0) {
+                updates.add(i);
+                keys.add(dirty.get(i).key);
+                amounts.add(drained.get(i).delta());
+            }
+        }
+        boolean[] applied = itemStockRepository.applyDeltas(keys, amounts);
+
+        boolean[] rejected = new boolean[dirty.size()];
+        Set<Integer> changedItems = new TreeSet<>();
+        List<Slot> changedSlots = new ArrayList<>();
+        for (int u = 0; u < applied.length; u++) {
+            Slot slot = dirty.get(updates.get(u));
+            if (applied[u]) {
+                changedItems.add(slot.itemId);
+                changedSlots.add(slot);
+            } else {
+                // The row went below zero or disappeared behind the ledger's back; trust the database
+                rejected[updates.get(u)] = true;
+                resync(slot);
+            }
+        }
+
+        List<StockMovement> movements = new ArrayList<>();
+        for (int i = 0; i < dirty.size(); i++) {
+            if (!rejected[i]) {
+                movements.addAll(drained.get(i).movements());
+            }
+        }
+        stockJournalRepository.insertMovements(movements);
+
+        // Publish the flushed values to the items table and the storefront snapshot
+        itemStockRepository.mirrorItemColumns(changedItems);
+        TransactionHooks.afterCommit(() -> publishStock(changedSlots));
+    }
+
+    /**
+     * Writes an order's deductions in its own transaction, just before it commits, so a
+     * committed order never has stock left to write. A row the database cannot cover fails
+     * the commit. Memory is settled once the transaction ends.
+     */
+    private void writeBeforeCommit(List<Change> changes, List<StockDeduction> lines) {
+        boolean[] locked = new boolean[1];
+        List<Slot> rejected = new ArrayList<>();
+        TransactionHooks.afterCompletion(() -> {
+            if (locked[0]) {
+                orderWrites.readLock().unlock();
+            }
+        });
+        TransactionHooks.afterRollback(() -> {
+            changes.forEach(this::undo);
+            // The database disagreed with memory; trust the database
+            rejected.forEach(this::resync);
+        });
+        TransactionHooks.afterCommit(() -> {
+            changes.forEach(this::settle);
+            publishStock(changes.stream().map(Change::slot).toList());
+        });
+        TransactionHooks.beforeCommit(() -> {
+            orderWrites.readLock().lock();
+            locked[0] = true;
+            List<Long> keys = new ArrayList<>(changes.size());
+            List<Integer> amounts = new ArrayList<>(changes.size());
+            Set<Integer> itemIds = new TreeSet<>();
+            List<StockMovement> movements = new ArrayList<>(changes.size());
+            for (Change change : changes) {
+                keys.add(change.slot().key);
+                amounts.add(change.delta());
+                itemIds.add(change.slot().itemId);
+                movements.add(change.movement());
+            }
+            boolean[] applied = itemStockRepository.applyDeltas(keys, amounts);
+            for (int i = 0; i < applied.length; i++) {
+                if (!applied[i]) {
+                    Slot slot = changes.get(i).slot();
+                    rejected.add(slot);
+                    throw insufficient(lines.get(i), itemStockRepository.currentStock(slot.key), catalogCache.snapshot());
+                }
+            }
+            stockJournalRepository.insertMovements(movements);
+            itemStockRepository.mirrorItemColumns(itemIds);
+        });
+    }
+
+    /**
+     * Hands the changes to the next flush once the caller's transaction commits (at once
+     * without one), and takes them back out of memory if it rolls back.
+     */
+    private void queueAfterCommit(List<Change> changes) {
+        TransactionHooks.afterRollback(() -> changes.forEach(this::undo));
+        TransactionHooks.afterCommit(() -> changes.forEach(this::queue));
+    }
+
+    /**
+     * Publishes the slots' items' stock to the storefront snapshot, with one catalog version
+     * bump per call (per flush, or per committed order). An item is only taken off sale when
+     * none of its variants has stock left.
+     */
+    private void publishStock(Collection<Slot> changed) {
+        Map<Integer, Boolean> inStock = new HashMap<>();
+        for (Slot slot : changed) {
+            inStock.merge(slot.itemId, slot.onHand > 0, Boolean::logicalOr);
+        }
+        if (inStock.containsValue(false)) {
+            // Rare: a variant ran out, so look at the item's other variants too
+            for (Slot slot : slots.values()) {
+                if (slot.onHand > 0) {
+                    inStock.computeIfPresent(slot.itemId, (itemId, any) -> true);
+                }
+            }
+        }
+        Map<Integer, CatalogCache.StockLevel> levels = new HashMap<>();
+        inStock.forEach((itemId, any) -> levels.put(itemId, new CatalogCache.StockLevel(
+                sharedStock(itemId, false), sharedStock(itemId, true), any)));
+        catalogCache.stockChanged(levels);
+    }
+
+    private int sharedStock(int itemId, boolean eggless) {
+        Slot slot = slots.get(VariantKey.of(itemId, eggless, 0));
+        return slot != null ? slot.onHand : 0;
+    }
+
+    private Slot slot(long key) {
+        Slot slot = slots.get(key);
+        if (slot == null) {
+            catalogCache.snapshot();  // seeds every known item on first load
+            slot = slots.get(key);
+        }
+        return slot;
+    }
+
+    /**
+     * The weight's own slot if it has one, otherwise the item's shared slot.
+     */
+    private Slot resolve(int itemId, boolean eggless, int weightGrams) {
+        if (weightGrams != 0) {
+            Slot slot = slots.get(VariantKey.of(itemId, eggless, weightGrams));
+            if (slot != null) {
+                return slot;
+            }
+        }
+        return slot(VariantKey.of(itemId, eggless, 0));
+    }
+
+    private Slot requireSlot(Integer itemId, String eggType, Double weightKg) {
+        Slot slot = resolve(itemId, VariantKey.isEggless(eggType), VariantKey.grams(weightKg));
+        if (slot == null) {
+            throw new RuntimeException("Item not found with id: " + itemId);
+        }
+        return slot;
+    }
+
+    private void track(Slot slot) {
+        if (slots.putIfAbsent(slot.key, slot) == null) {
+            listeners().forEach(listener -> listener.stockLoaded(slot.key, slot.onHand));
+        }
+    }
+
+    /**
+     * Reports the slot's value once a change to it has committed or rolled back; call with the
+     * slot's stripe held so listeners see values in order.
+     */
+    private void changed(Slot slot) {
+        int onHand = slot.onHand;
+        listeners().forEach(listener -> listener.stockChanged(slot.key, onHand));
+    }
+
+    private List<StockListener> listeners() {
+        List<StockListener> resolved = listeners;
+        if (resolved == null) {
+            resolved = stockListeners.orderedStream().toList();
+            listeners = resolved;
+        }
+        return resolved;
+    }
+
+    private void seed(VariantStock row) {
+        long key = VariantKey.of(row.getItemId(), VariantKey.isEggless(row.getEggType()), row.getWeightGrams());
+        if (!slots.containsKey(key)) {
+            track(new Slot(key, row.getStock()));
+        }
+    }
+
+    /**
+     * Takes a change back out of memory after its transaction rolled back.
+     */
+    private void undo(Change change) {
+        Slot slot = change.slot();
+        ReentrantLock lock = stripeFor(slot);
+        lock.lock();
+        try {
+            slot.onHand -= change.delta();
+            slot.inFlight -= change.delta();
+            changed(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves a committed change into the slot's pending delta for the next flush.
+     */
+    private void queue(Change change) {
+        Slot slot = change.slot();
+        ReentrantLock lock = stripeFor(slot);
+        lock.lock();
+        try {
+            slot.inFlight -= change.delta();
+            slot.pending += change.delta();
+            slot.movements.add(change.movement());
+            changed(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a committed change that was written in its own transaction.
+     */
+    private void settle(Change change) {
+        Slot slot = change.slot();
+        ReentrantLock lock = stripeFor(slot);
+        lock.lock();
+        try {
+            slot.inFlight -= change.delta();
+            changed(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Pending drain(Slot slot) {
+        ReentrantLock lock = stripeFor(slot);
+        lock.lock();
+        try {
+            if (slot.pending == 0 && slot.movements.isEmpty()) {
+                return null;
+            }
+            Pending pending = new Pending(slot.pending, slot.movements);
+            slot.pending = 0;
+            slot.movements = new ArrayList<>();
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void restorePending(Slot slot, Pending pending) {
+        ReentrantLock lock = stripeFor(slot);
+        lock.lock();
+        try {
+            slot.pending += pending.delta();
+            slot.movements.addAll(0, pending.movements());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void resync(Slot slot) {
+        int dbStock = itemStockRepository.currentStock(slot.key);
+        ReentrantLock lock = stripeFor(slot);
+        lock.lock();
+        try {
+            logger.warn("Stock for item {} ({}, {} g) drifted from the database; resetting to {} plus pending {}",
+                    slot.itemId, slot.eggless ? "eggless" : "regular", slot.weightGrams, dbStock,
+                    slot.pending + slot.inFlight);
+            slot.onHand = dbStock + slot.pending + slot.inFlight;
+            changed(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Locks the stripes of all slots in index order so concurrent multi-line deductions cannot deadlock.
+     */
+    private Collection<ReentrantLock> lockAll(List<Slot> targets) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        targets.forEach(slot -> indexes.add(stripeIndex(slot)));
+        List<ReentrantLock> locked = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            stripes[index].lock();
+            locked.add(stripes[index]);
+        }
+        return locked;
+    }
+
+    private ReentrantLock stripeFor(Slot slot) {
+        return stripes[stripeIndex(slot)];
+    }
+
+    private static int stripeIndex(Slot slot) {
+        // Fibonacci hashing spreads the packed key's item, egg and weight bits over the stripes
+        return (int) ((slot.key * 0x9E3779B97F4A7C15L) >>> 58);
+    }
+
+    private static RuntimeException insufficient(StockDeduction line, int available, CatalogSnapshot snapshot) {
+        Item item = snapshot.getItem(line.getItemId());
+        String name = item != null ? item.getName() : String.valueOf(line.getItemId());
+        return new RuntimeException("Insufficient stock for item: " + name +
+                                    (line.isEggless() ? " (eggless)" : "") +
+                                    (line.getSelectedWeight() != null ? " (" + line.getSelectedWeight() + " kg)" : "") +
+                                    ". Available: " + available + ", Requested: " + line.getQuantity());
+    }
+
+    private record Pending(int delta, List<StockMovement> movements) {
+    }
+
+    private record Change(Slot slot, int delta, StockMovement movement) {
+    }
+
+    private static final class Slot {
+        final long key;
+        final int itemId;
+        final boolean eggless;
+        final int weightGrams;
+        // Written under the slot's stripe lock. onHand includes uncommitted changes (inFlight);
+        // pending is committed but not yet flushed
+        volatile int onHand;
+        int inFlight;
+        int pending;
+        List<StockMovement> movements = new ArrayList<>();
+
+        Slot(long key, int onHand) {
+            this.key = key;
+            this.itemId = VariantKey.itemId(key);
+            this.eggless = VariantKey.eggless(key);
+            this.weightGrams = VariantKey.weightGrams(key);
+            this.onHand = onHand;
+        }
+
+        void hold(int delta) {
+            onHand += delta;
+            inFlight += delta;
+        }
+
+        StockMovement movement(int delta, String reason, Integer orderId) {
+            return new StockMovement(null, itemId, VariantKey.variant(eggless), weightGrams, delta,
+                    reason, orderId, LocalDateTime.now());
+        }
+    }
+}
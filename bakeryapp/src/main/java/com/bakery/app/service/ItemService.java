@@ -1,50 +1,115 @@
 package com.bakery.app.service;
 
+import com.bakery.app.dto.CursorPage;
+import com.bakery.app.dto.ItemFilterRequest;
+import com.bakery.app.dto.ItemFilterResponse;
 import com.bakery.app.dto.ItemRequest;
+import com.bakery.app.dto.ItemSummary;
+import com.bakery.app.dto.LowStockAlert;
+import com.bakery.app.dto.StockAdjustmentLine;
+import com.bakery.app.dto.StockAdjustmentResult;
+import com.bakery.app.dto.StockDeduction;
 import com.bakery.app.entity.CartItem;
 import com.bakery.app.entity.Category;
 import com.bakery.app.entity.Item;
-import com.bakery.app.entity.OrderItem;
+import com.bakery.app.entity.VariantStock;
+import com.bakery.app.repository.CartItemBatchRepository;
 import com.bakery.app.repository.CartItemRepository;
 import com.bakery.app.repository.ItemRepository;
+import com.bakery.app.repository.ItemStockRepository;
 import com.bakery.app.repository.OrderItemRepository;
+import com.bakery.app.repository.ReviewRepository;
+import com.bakery.app.repository.VariantStockRepository;
+import com.bakery.app.util.VariantKey;
+import com.bakery.app.util.WeightPriceTable;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class ItemService {
     
+    private static final Logger logger = LoggerFactory.getLogger(ItemService.class);
+    
     private final ItemRepository itemRepository;
+    private final InventoryLedger inventoryLedger;
+    private final ItemStockRepository itemStockRepository;
+    private final VariantStockRepository variantStockRepository;
+    private final StockJournalService stockJournalService;
+    private final LowStockMonitor lowStockMonitor;
     private final CategoryService categoryService;
     private final CartItemRepository cartItemRepository;
+    private final CartItemBatchRepository cartItemBatchRepository;
+    private final PricingService pricingService;
     private final OrderItemRepository orderItemRepository;
+    private final ReviewRepository reviewRepository;
     private final OrderHistoryService orderHistoryService;
+    private final CatalogCache catalogCache;
+    private final ProductSearchIndex productSearchIndex;
+    
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_FILTER_LIMIT = 50;
+    private static final int MAX_FILTER_LIMIT = 200;
     
     @PersistenceContext
     private EntityManager entityManager;
     
     public ItemService(
             ItemRepository itemRepository,
+            InventoryLedger inventoryLedger,
+            ItemStockRepository itemStockRepository,
+            VariantStockRepository variantStockRepository,
+            StockJournalService stockJournalService,
+            LowStockMonitor lowStockMonitor,
             CategoryService categoryService,
             CartItemRepository cartItemRepository,
+            CartItemBatchRepository cartItemBatchRepository,
+            PricingService pricingService,
             OrderItemRepository orderItemRepository,
-            @Lazy OrderHistoryService orderHistoryService) {
+            ReviewRepository reviewRepository,
+            @Lazy OrderHistoryService orderHistoryService,
+            CatalogCache catalogCache,
+            ProductSearchIndex productSearchIndex) {
         this.itemRepository = itemRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.itemStockRepository = itemStockRepository;
+        this.variantStockRepository = variantStockRepository;
+        this.stockJournalService = stockJournalService;
+        this.lowStockMonitor = lowStockMonitor;
         this.categoryService = categoryService;
         this.cartItemRepository = cartItemRepository;
+        this.cartItemBatchRepository = cartItemBatchRepository;
+        this.pricingService = pricingService;
         this.orderItemRepository = orderItemRepository;
+        this.reviewRepository = reviewRepository;
         this.orderHistoryService = orderHistoryService;
+        this.catalogCache = catalogCache;
+        this.productSearchIndex = productSearchIndex;
     }
     
     @Transactional
     public Item createItem(ItemRequest request) {
+        WeightPriceTable.parse(request.getPricePerKg());  // Reject malformed weight pricing up front
         Category category = categoryService.getCategoryById(request.getCategoryId());
         
         Item item = new Item();
@@ -58,15 +123,23 @@ public class ItemService {
         item.setStock(request.getStock() != null ? request.getStock() : 0);
         item.setEggStock(request.getEggStock() != null ? request.getEggStock() : 0);
         item.setEgglessStock(request.getEgglessStock() != null ? request.getEgglessStock() : 0);
+        item.setLowStockThreshold(request.getLowStockThreshold());
         item.setFeatured(request.getFeatured() != null ? request.getFeatured() : false);
         item.setAvailable(request.getAvailable() != null ? request.getAvailable() : true);
         item.setPricePerKg(request.getPricePerKg()); // Set weight-based pricing for cakes
         
-        return itemRepository.save(item);
+        Item savedItem = itemRepository.save(item);
+        variantStockRepository.saveAll(List.of(
+                new VariantStock(null, savedItem.getId(), VariantKey.REGULAR, 0, savedItem.getStock()),
+                new VariantStock(null, savedItem.getId(), VariantKey.EGGLESS, 0, savedItem.getEgglessStock())));
+        stockJournalService.itemCreated(savedItem);
+        catalogCache.itemSaved(savedItem);
+        return savedItem;
     }
     
+    // Storefront reads are served from the in-memory catalog snapshot
     public List<Item> getAllItems() {
-        return itemRepository.findAll();
+        return catalogCache.snapshot().getItems();
     }
     
     public Item getItemById(Integer id) {
@@ -74,14 +147,46 @@ public class ItemService {
                 .orElseThrow(() -> new RuntimeException("Item not found with id: " + id));
     }
     
+    /**
+     * Loads the given items in one query, by id; missing ids are left out.
+     */
+    public Map<Integer, Item> getItemsByIds(Collection<Integer> ids) {
+        Map<Integer, Item> items = new HashMap<>();
+        itemRepository.findAllById(ids).forEach(item -> items.put(item.getId(), item));
+        return items;
+    }
+    
     public List<Item> getItemsByCategory(Integer categoryId) {
-        return itemRepository.findByCategoryId(categoryId);
+        return catalogCache.snapshot().getItemsByCategory(categoryId);
+    }
+    
+    /**
+     * Keyset-paginated list view: returns up to {@code limit} items with id greater than {@code after}.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ItemSummary> getItemSummaries(Integer categoryId, Integer after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        int cursor = after != null ? after : 0;
+        // Fetch one extra row to know whether another page exists
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        
+        List<ItemSummary> rows = categoryId == null
+                ? itemRepository.findSummariesAfter(cursor, pageable)
+                : itemRepository.findSummariesByCategoryAfter(categoryId, cursor, pageable);
+        
+        boolean hasMore = rows.size() > pageSize;
+        List<ItemSummary> content = hasMore ? rows.subList(0, pageSize) : rows;
+        Integer nextCursor = hasMore ? content.get(content.size() - 1).getId() : null;
+        return new CursorPage<>(content, nextCursor, hasMore);
     }
     
     @Transactional
     public Item updateItem(Integer id, ItemRequest request) {
+        WeightPriceTable.parse(request.getPricePerKg());
         Item item = getItemById(id);
         Category category = categoryService.getCategoryById(request.getCategoryId());
+        Double oldPrice = item.getPrice();
+        String oldPricePerKg = item.getPricePerKg();
         
         item.setName(request.getName());
         item.setDescription(request.getDescription());
@@ -90,61 +195,238 @@ public class ItemService {
         if (request.getPieces() != null) item.setPieces(request.getPieces());
         item.setImageUrl(request.getImageUrl());
         item.setCategory(category);
-        if (request.getStock() != null) item.setStock(request.getStock());
+        // Stock columns are owned by the inventory ledger; the entity only mirrors the new values
+        if (request.getStock() != null) {
+            inventoryLedger.set(id, null, request.getStock(), InventoryLedger.ITEM_EDIT);
+            item.setStock(request.getStock());
+        }
         if (request.getEggStock() != null) item.setEggStock(request.getEggStock());
-        if (request.getEgglessStock() != null) item.setEgglessStock(request.getEgglessStock());
+        if (request.getEgglessStock() != null) {
+            inventoryLedger.set(id, "EGGLESS", request.getEgglessStock(), InventoryLedger.ITEM_EDIT);
+            item.setEgglessStock(request.getEgglessStock());
+        }
+        if (request.getLowStockThreshold() != null) item.setLowStockThreshold(request.getLowStockThreshold());
         if (request.getFeatured() != null) item.setFeatured(request.getFeatured());
         if (request.getAvailable() != null) item.setAvailable(request.getAvailable());
         if (request.getPricePerKg() != null) item.setPricePerKg(request.getPricePerKg()); // Update weight-based pricing
         
-        return itemRepository.save(item);
+        if (!Objects.equals(oldPrice, item.getPrice()) || !Objects.equals(oldPricePerKg, item.getPricePerKg())) {
+            repriceCartLines(item);
+        }
+        Item savedItem = itemRepository.save(item);
+        catalogCache.itemSaved(savedItem);
+        return savedItem;
+    }
+    
+    /**
+     * Moves open cart lines of the item to its new price and shifts their carts' running
+     * totals by the difference, so cart totals keep matching what checkout charges.
+     */
+    private void repriceCartLines(Item item) {
+        List<CartItem> lines = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        for (CartItem line : cartItemBatchRepository.findLinesOfItem(item)) {
+            long oldPaise = Math.round((line.getPriceAtAddition() != null ? line.getPriceAtAddition() : 0.0) * 100);
+            long newPaise;
+            try {
+                newPaise = pricingService.unitPriceInPaise(item, line.getEggType(), line.getSelectedWeight());
+            } catch (RuntimeException e) {
+                // The line's weight was dropped; checkout rejects it, so leave it as it is
+                continue;
+            }
+            if (newPaise != oldPaise) {
+                line.setPriceAtAddition(newPaise / 100.0);
+                lines.add(line);
+                deltas.add((newPaise - oldPaise) * line.getQuantity());
+            }
+        }
+        cartItemBatchRepository.reprice(lines, deltas);
     }
     
     @Transactional
     public void updateStock(Integer itemId, Integer quantity) {
-        Item item = getItemById(itemId);
-        item.setStock(item.getStock() - quantity);
-        if (item.getStock() <= 0) {
-            item.setStock(0);
-            item.setAvailable(false);
-        }
-        itemRepository.save(item);
+        updateStock(itemId, quantity, null);
     }
     
     @Transactional
     public void updateStock(Integer itemId, Integer quantity, String eggType) {
-        Item item = getItemById(itemId);
+        deductStock(List.of(new StockDeduction(itemId, eggType, quantity)), null);
+    }
+    
+    /**
+     * Deducts stock for several lines of an order at once. Throws if any line lacks stock;
+     * nothing is deducted in that case.
+     */
+    public void deductStock(List<StockDeduction> lines, Integer orderId) {
+        inventoryLedger.deduct(lines, InventoryLedger.ORDER, orderId);
+    }
+    
+    /**
+     * Admin stock change for the regular variant: "add", "subtract" or "set".
+     */
+    @Transactional
+    public Item adjustStock(Integer id, String operation, Integer quantity) {
+        Item item = getItemById(id);
+        int newStock = applyAdjustment(id, null, null, operation, quantity);
         
-        if ("EGGLESS".equals(eggType)) {
-            // Deduct from eggless stock
-            item.setEgglessStock(Math.max(0, item.getEgglessStock() - quantity));
-        } else {
-            // Deduct from regular stock (for both null and "EGG" - they're the same)
-            item.setStock(Math.max(0, item.getStock() - quantity));
+        item.setStock(newStock);  // not written by the save; the ledger flushes the column
+        item.setAvailable(newStock > 0);
+        Item savedItem = itemRepository.save(item);
+        catalogCache.itemSaved(savedItem);
+        return savedItem;
+    }
+    
+    /**
+     * Applies many admin stock changes in one transaction, e.g. the morning bake upload.
+     * Items are loaded in one query and availability flags are written as one JDBC batch;
+     * the stock columns follow through the ledger's batched flush. Each line succeeds or
+     * fails on its own and gets a result in request order.
+     */
+    @Transactional
+    public List<StockAdjustmentResult> adjustStockBatch(List<StockAdjustmentLine> lines) {
+        Map<Integer, Item> items = new HashMap<>();
+        for (Item item : itemRepository.findAllById(lines.stream().map(StockAdjustmentLine::getItemId).collect(Collectors.toSet()))) {
+            // Detached: only the ledger and the availability batch write these rows
+            entityManager.detach(item);
+            items.put(item.getId(), item);
         }
         
-        // Check if item should be marked unavailable
-        if (item.getStock() <= 0 && item.getEgglessStock() <= 0) {
-            item.setAvailable(false);
+        List<StockAdjustmentResult> results = new ArrayList<>(lines.size());
+        Map<Integer, Item> touched = new LinkedHashMap<>();
+        for (StockAdjustmentLine line : lines) {
+            Item item = items.get(line.getItemId());
+            if (item == null) {
+                results.add(StockAdjustmentResult.rejected(line, "Item not found with id: " + line.getItemId()));
+                continue;
+            }
+            try {
+                if (line.getWeight() != null) {
+                    inventoryLedger.addVariant(item.getId(), line.getEggType(), line.getWeight());
+                }
+                int newStock = applyAdjustment(item.getId(), line.getEggType(), line.getWeight(),
+                        line.getOperation(), line.getQuantity());
+                mirrorSharedStock(item);
+                touched.put(item.getId(), item);
+                results.add(StockAdjustmentResult.applied(line, newStock));
+            } catch (RuntimeException e) {
+                results.add(StockAdjustmentResult.rejected(line, e.getMessage()));
+            }
         }
         
-        itemRepository.save(item);
+        if (!touched.isEmpty()) {
+            Set<Integer> inStock = inventoryLedger.variants().stream()
+                    .filter(variant -> variant.getStock() > 0)
+                    .map(VariantStock::getItemId)
+                    .collect(Collectors.toSet());
+            List<Integer> ids = new ArrayList<>(touched.keySet());
+            List<Boolean> flags = new ArrayList<>(ids.size());
+            for (Item item : touched.values()) {
+                item.setAvailable(inStock.contains(item.getId()));
+                flags.add(item.getAvailable());
+            }
+            itemStockRepository.updateAvailability(ids, flags);
+            touched.values().forEach(catalogCache::itemSaved);
+        }
+        return results;
+    }
+    
+    /**
+     * Applies one admin "add", "subtract" or "set" through the ledger and returns the new stock.
+     */
+    private int applyAdjustment(Integer id, String eggType, Double weightKg, String operation, int quantity) {
+        if ("add".equalsIgnoreCase(operation)) {
+            return inventoryLedger.adjust(id, eggType, weightKg, quantity, InventoryLedger.ADMIN_ADD, null);
+        } else if ("subtract".equalsIgnoreCase(operation)) {
+            return inventoryLedger.adjust(id, eggType, weightKg, -quantity, InventoryLedger.ADMIN_SUBTRACT, null);
+        } else if ("set".equalsIgnoreCase(operation)) {
+            inventoryLedger.set(id, eggType, weightKg, quantity, InventoryLedger.ADMIN_SET);
+            return quantity;
+        }
+        throw new RuntimeException("Invalid operation. Use 'add', 'set', or 'subtract'");
+    }
+    
+    /**
+     * Copies the ledger's shared stock onto the entity; the columns themselves are written by the ledger.
+     */
+    private void mirrorSharedStock(Item item) {
+        item.setStock(inventoryLedger.stock(item.getId(), null));
+        item.setEgglessStock(inventoryLedger.stock(item.getId(), VariantKey.EGGLESS));
+    }
+    
+    /**
+     * Items with at least one sellable variant at or below the threshold, read from the live
+     * inventory. The eggless shared stock only counts for items that offer an eggless option.
+     */
+    public List<Item> getLowStockItems(int threshold) {
+        CatalogSnapshot snapshot = catalogCache.snapshot();
+        Set<Integer> low = new HashSet<>();
+        for (VariantStock variant : inventoryLedger.variants()) {
+            Item item = snapshot.getItem(variant.getItemId());
+            if (item != null && variant.getStock() <= threshold && appliesTo(variant, item)) {
+                low.add(item.getId());
+            }
+        }
+        return snapshot.getItems().stream()
+                .filter(item -> low.contains(item.getId()))
+                .toList();
+    }
+    
+    /**
+     * Items on the low-stock alert list (per-item thresholds), lowest stock first.
+     */
+    public List<Item> getAlertedItems() {
+        CatalogSnapshot snapshot = catalogCache.snapshot();
+        return lowStockMonitor.lowStock().stream()
+                .map(LowStockAlert::getItemId)
+                .distinct()
+                .map(snapshot::getItem)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+    
+    private static boolean appliesTo(VariantStock variant, Item item) {
+        return !VariantKey.EGGLESS.equals(variant.getEggType())
+                || variant.getWeightGrams() != 0
+                || Boolean.TRUE.equals(item.getHasEggOption());
+    }
+    
+    /**
+     * Puts stock back for a cancelled order line and makes the item available again.
+     */
+    @Transactional
+    public void restoreStock(Integer itemId, String eggType, Double weightKg, Integer quantity, Integer orderId) {
+        inventoryLedger.adjust(itemId, eggType, weightKg, quantity, InventoryLedger.ORDER_CANCELLED, orderId);
+        Item item = getItemById(itemId);
+        mirrorSharedStock(item);
+        item.setAvailable(true);
+        catalogCache.itemSaved(itemRepository.save(item));
     }
     
     public List<Item> getFeaturedItems() {
-        return itemRepository.findAll().stream()
-                .filter(Item::getFeatured)
-                .filter(Item::getAvailable)
-                .collect(Collectors.toList());
+        return catalogCache.snapshot().getFeaturedItems();
     }
     
     public List<Item> searchItems(String keyword) {
-        return itemRepository.findAll().stream()
-                .filter(item -> item.getName().toLowerCase().contains(keyword.toLowerCase()) ||
-                               (item.getDescription() != null && item.getDescription().toLowerCase().contains(keyword.toLowerCase())))
+        CatalogSnapshot snapshot = catalogCache.snapshot();
+        if (keyword == null || keyword.isBlank()) {
+            return snapshot.getItems();
+        }
+        return productSearchIndex.search(keyword, MAX_SEARCH_RESULTS).stream()
+                .map(snapshot::getItem)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Faceted storefront filter evaluated against the in-memory catalog snapshot.
+     */
+    public ItemFilterResponse filterItems(ItemFilterRequest request) {
+        int limit = request.getLimit() != null
+                ? Math.max(1, Math.min(request.getLimit(), MAX_FILTER_LIMIT))
+                : DEFAULT_FILTER_LIMIT;
+        return catalogCache.snapshot().facetIndex().query(request, limit);
+    }
+    
     @Transactional
     public void deleteItem(Integer id) {
         // Get item name first
@@ -155,11 +437,7 @@ public class ItemService {
         System.out.println("Attempting to delete item: " + itemName + " (ID: " + id + ")");
         
         // STEP 1: Check if item is in any ACTIVE orders (Pending/Confirmed)
-        List<OrderItem> allOrderItems = orderItemRepository.findAll();
-        long activeOrderCount = allOrderItems.stream()
-                .filter(oi -> oi.getItem() != null && oi.getItem().getId().equals(id))
-                .filter(oi -> !oi.getOrder().getStatus().equalsIgnoreCase("Delivered"))
-                .count();
+        long activeOrderCount = orderItemRepository.countActiveOrderLinesByItemId(id);
         
         if (activeOrderCount > 0) {
             throw new RuntimeException("Cannot delete item. It exists in " + activeOrderCount + " active order(s) (Pending/Confirmed). Please wait until all orders are delivered.");
@@ -173,12 +451,52 @@ public class ItemService {
         
         // STEP 3: Delete all cart items referencing this item
         System.out.println("Deleting cart items for item ID: " + id);
+        cartItemBatchRepository.subtractItems(List.of(id), PricingService.EGGLESS_SURCHARGE_PAISE);
         cartItemRepository.deleteByItemId(id);
+        variantStockRepository.deleteByItemIdIn(List.of(id));
         
         // STEP 4: Delete the item (no active orders reference it)
         System.out.println("Deleting item: " + itemName + " (ID: " + id + ")");
         itemRepository.deleteById(id);
+        catalogCache.itemDeleted(id);
         
         System.out.println("Item deleted successfully. Order history preserved in separate table.");
     }
+    
+    /**
+     * Deletes several items at once. All ids are validated up front (existence and
+     * active orders) and nothing is deleted if any of them fails.
+     */
+    @Transactional
+    public void deleteItems(List<Integer> ids) {
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        
+        Set<Integer> found = itemRepository.findAllById(uniqueIds).stream()
+                .map(Item::getId)
+                .collect(Collectors.toSet());
+        List<Integer> missing = uniqueIds.stream()
+                .filter(id -> !found.contains(id))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Items not found with ids: " + missing);
+        }
+        
+        List<Object[]> active = orderItemRepository.countActiveOrderLinesByItemIds(uniqueIds);
+        if (!active.isEmpty()) {
+            String blocked = active.stream()
+                    .map(row -> row[0] + " (" + row[1] + " active order line(s))")
+                    .collect(Collectors.joining(", "));
+            throw new RuntimeException("Cannot delete items that exist in active orders (Pending/Confirmed): " + blocked);
+        }
+        
+        cartItemBatchRepository.subtractItems(uniqueIds, PricingService.EGGLESS_SURCHARGE_PAISE);
+        cartItemRepository.deleteByItemIdIn(uniqueIds);
+        variantStockRepository.deleteByItemIdIn(uniqueIds);
+        // The batch delete skips the Item.reviews cascade, so reviews go first
+        reviewRepository.deleteByItemIdIn(uniqueIds);
+        itemRepository.deleteAllByIdInBatch(uniqueIds);
+        catalogCache.itemsDeleted(uniqueIds);
+        
+        logger.info("Deleted {} items: {}", uniqueIds.size(), uniqueIds);
+    }
 }
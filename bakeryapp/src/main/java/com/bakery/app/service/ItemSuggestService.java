@@ -0,0 +1,225 @@
+package com.bakery.app.service;
+
+import com.bakery.app.dto.Suggestion;
+import com.bakery.app.entity.Item;
+import com.bakery.app.repository.OrderHistoryItemRepository;
+import com.bakery.app.repository.OrderItemRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Type-ahead over item and category names. Completions come from a sorted array of
+ * lowercase keys (each full name plus every later word start, so "truf" finds
+ * "Chocolate Truffle Cake"), located by binary search and ranked by units sold.
+ */
+@Service
+public class ItemSuggestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemSuggestService.class);
+
+    private static final String ITEM = "ITEM";
+    private static final String CATEGORY = "CATEGORY";
+    private static final int MAX_SUGGESTIONS = 20;
+
+    private final CatalogCache catalogCache;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderHistoryItemRepository orderHistoryItemRepository;
+
+    private volatile Map<Integer, Long> popularity = Map.of();
+    private volatile SuggestIndex index;
+
+    // Rebuilds run here so requests keep the old index instead of waiting for a new one
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suggest-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    public ItemSuggestService(CatalogCache catalogCache,
+                              OrderItemRepository orderItemRepository,
+                              OrderHistoryItemRepository orderHistoryItemRepository) {
+        this.catalogCache = catalogCache;
+        this.orderItemRepository = orderItemRepository;
+        this.orderHistoryItemRepository = orderHistoryItemRepository;
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return currentIndex().complete(prefix.trim().toLowerCase(Locale.ROOT), size);
+    }
+
+    /**
+     * Reloads units sold per item from current and delivered orders.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${suggest.popularity.refresh-ms:900000}")
+    public void refreshPopularity() {
+        Map<Integer, Long> sold = new HashMap<>();
+        addCounts(sold, orderItemRepository.sumQuantityByItem());
+        addCounts(sold, orderHistoryItemRepository.sumQuantityByItem());
+        popularity = sold;
+        logger.debug("Refreshed suggestion popularity for {} items", sold.size());
+        if (index != null) {
+            requestRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * The latest built index. Only the very first one is built on the caller's thread; after
+     * that a stale index is served while its replacement is built in the background.
+     */
+    private SuggestIndex currentIndex() {
+        SuggestIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    index = new SuggestIndex(catalogCache.snapshot(), popularity);
+                }
+                return index;
+            }
+        }
+        if (current.catalogVersion != catalogCache.snapshot().getVersion() || current.popularity != popularity) {
+            requestRebuild();
+        }
+        return current;
+    }
+
+    /**
+     * Queues one rebuild; requests arriving while it waits are folded into it.
+     */
+    private void requestRebuild() {
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        rebuilder.execute(() -> {
+            // Cleared first so a change published during the build queues another one
+            rebuildQueued.set(false);
+            try {
+                index = new SuggestIndex(catalogCache.snapshot(), popularity);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to rebuild the suggestion index", e);
+            }
+        });
+    }
+
+    private static void addCounts(Map<Integer, Long> target, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            if (row[0] != null && row[1] != null) {
+                target.merge(((Number) row[0]).intValue(), ((Number) row[1]).longValue(), Long::sum);
+            }
+        }
+    }
+
+    private static final class SuggestIndex {
+
+        private final long catalogVersion;
+        private final Map<Integer, Long> popularity;
+
+        // Parallel arrays sorted by key
+        private final String[] keys;
+        private final Suggestion[] targets;
+        private final long[] scores;
+
+        SuggestIndex(CatalogSnapshot snapshot, Map<Integer, Long> popularity) {
+            this.catalogVersion = snapshot.getVersion();
+            this.popularity = popularity;
+
+            List<Entry> entries = new ArrayList<>();
+            Map<Integer, Long> categoryScores = new LinkedHashMap<>();
+            Map<Integer, String> categoryNames = new HashMap<>();
+            for (Item item : snapshot.getItems()) {
+                long score = popularity.getOrDefault(item.getId(), 0L);
+                addKeys(entries, item.getName(), new Suggestion(item.getName(), ITEM, item.getId()), score);
+                if (item.getCategory() != null) {
+                    categoryScores.merge(item.getCategory().getId(), score, Long::sum);
+                    categoryNames.put(item.getCategory().getId(), item.getCategory().getName());
+                }
+            }
+            categoryScores.forEach((id, score) -> {
+                String name = categoryNames.get(id);
+                addKeys(entries, name, new Suggestion(name, CATEGORY, id), score);
+            });
+
+            entries.sort(Comparator.comparing(e -> e.key));
+            this.keys = new String[entries.size()];
+            this.targets = new Suggestion[entries.size()];
+            this.scores = new long[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                keys[i] = entries.get(i).key;
+                targets[i] = entries.get(i).target;
+                scores[i] = entries.get(i).score;
+            }
+        }
+
+        List<Suggestion> complete(String prefix, int limit) {
+            int start = Arrays.binarySearch(keys, prefix);
+            if (start < 0) {
+                start = -start - 1;
+            }
+
+            // Min-heap of the best `limit` hits; a name can be reached through several keys
+            PriorityQueue<Integer> best = new PriorityQueue<>(Comparator.comparingLong((Integer i) -> scores[i])
+                    .thenComparing(i -> targets[i].getText(), Comparator.reverseOrder()));
+            Set<Suggestion> seen = new HashSet<>();
+            for (int i = start; i < keys.length && keys[i].startsWith(prefix); i++) {
+                if (!seen.add(targets[i])) {
+                    continue;
+                }
+                best.offer(i);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            List<Suggestion> result = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                result.add(targets[best.poll()]);
+            }
+            Collections.reverse(result);
+            return result;
+        }
+
+        private static void addKeys(List<Entry> entries, String name, Suggestion target, long score) {
+            if (name == null || name.isBlank()) {
+                return;
+            }
+            String lower = name.toLowerCase(Locale.ROOT).trim();
+            entries.add(new Entry(lower, target, score));
+            for (int i = 1; i < lower.length(); i++) {
+                if (lower.charAt(i - 1) == ' ' && lower.charAt(i) != ' ') {
+                    entries.add(new Entry(lower.substring(i), target, score));
+                }
+            }
+        }
+
+        private record Entry(String key, Suggestion target, long score) {
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.bakery.app.service;
+
+import com.bakery.app.dto.LowStockAlert;
+import com.bakery.app.dto.NotificationDTO;
+import com.bakery.app.entity.Admin;
+import com.bakery.app.entity.Item;
+import com.bakery.app.repository.AdminRepository;
+import com.bakery.app.util.IndexedMinHeap;
+import com.bakery.app.util.VariantKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Keeps the low-stock list up to date from the ledger's change stream instead of scanning
+ * items. A variant turns low when its stock falls to the item's threshold and stays low
+ * until it is restocked past threshold + hysteresis, so stock hovering around the
+ * threshold raises one alert rather than one per sale. Low variants sit in a min-heap by
+ * stock.
+ * <p>
+ * The ledger calls in under its locks, so stock values are only queued there; they are
+ * evaluated when the list is read and on every alert run. Alerts are pushed to admins as
+ * notifications.
+ */
+@Component
+public class LowStockMonitor implements StockListener, CatalogListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockMonitor.class);
+
+    private final NotificationService notificationService;
+    private final AdminRepository adminRepository;
+    private final int defaultThreshold;
+    private final int hysteresis;
+
+    // Everything below is guarded by "this"
+    private final Map<Long, Integer> stock = new HashMap<>();
+    private final Map<Integer, Item> items = new HashMap<>();
+    private final IndexedMinHeap low = new IndexedMinHeap();
+    // Low variants that already reported reaching zero during their current low spell
+    private final Set<Long> outAlerted = new HashSet<>();
+    private List<LowStockAlert> cached;
+
+    // Stock values from the ledger, not yet evaluated
+    private final Queue<StockValue> changes = new ConcurrentLinkedQueue<>();
+    private final Queue<NotificationDTO> outbox = new ConcurrentLinkedQueue<>();
+
+    public LowStockMonitor(NotificationService notificationService,
+                           AdminRepository adminRepository,
+                           @Value("${inventory.low-stock.threshold:10}") int defaultThreshold,
+                           @Value("${inventory.low-stock.hysteresis:5}") int hysteresis) {
+        this.notificationService = notificationService;
+        this.adminRepository = adminRepository;
+        this.defaultThreshold = defaultThreshold;
+        this.hysteresis = hysteresis;
+    }
+
+    /**
+     * Low variants, lowest stock first. Rebuilt only after a change.
+     */
+    public synchronized List<LowStockAlert> lowStock() {
+        applyChanges();
+        if (cached == null) {
+            List<LowStockAlert> alerts = new ArrayList<>(low.size());
+            for (long key : low.sortedKeys()) {
+                alerts.add(toAlert(key));
+            }
+            cached = List.copyOf(alerts);
+        }
+        return cached;
+    }
+
+    @Override
+    public void stockLoaded(long variantKey, int value) {
+        changes.add(new StockValue(variantKey, value, true));
+    }
+
+    @Override
+    public void stockChanged(long variantKey, int value) {
+        changes.add(new StockValue(variantKey, value, false));
+    }
+
+    private void load(long variantKey, int value) {
+        stock.put(variantKey, value);
+        // Start out in the right state without alerting for stock that was already low
+        Item item = items.get(VariantKey.itemId(variantKey));
+        if (item != null && applies(variantKey, item) && value <= thresholdOf(item)) {
+            markLow(variantKey, value);
+            if (value <= 0) {
+                outAlerted.add(variantKey);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void catalogLoaded(Collection<Item> loaded) {
+        applyChanges();
+        items.clear();
+        loaded.forEach(item -> items.put(item.getId(), item));
+        stock.keySet().removeIf(key -> !items.containsKey(VariantKey.itemId(key)));
+        // Thresholds may have changed while the catalog was unloaded; re-derive quietly
+        for (long key : low.sortedKeys()) {
+            clearLow(key);
+        }
+        outAlerted.clear();
+        new ArrayList<>(stock.entrySet()).forEach(entry -> load(entry.getKey(), entry.getValue()));
+    }
+
+    @Override
+    public synchronized void catalogChanged(Collection<Item> upserts, Collection<Integer> removals) {
+        applyChanges();
+        for (Integer itemId : removals) {
+            items.remove(itemId);
+            List<Long> keys = stock.keySet().stream().filter(key -> VariantKey.itemId(key) == itemId).toList();
+            for (long key : keys) {
+                stock.remove(key);
+                clearLow(key);
+            }
+        }
+        for (Item item : upserts) {
+            Item previous = items.put(item.getId(), item);
+            if (previous == null || !sameAlerting(previous, item)) {
+                // New item or changed threshold / egg option; names on the list may have changed too
+                stock.keySet().stream()
+                        .filter(key -> VariantKey.itemId(key) == item.getId())
+                        .toList()
+                        .forEach(key -> evaluate(key, previous != null));
+            }
+        }
+        cached = null;
+    }
+
+    /**
+     * Pushes queued alerts to every admin.
+     */
+    @Scheduled(fixedDelayString = "${inventory.low-stock.notify-ms:5000}")
+    public void sendAlerts() {
+        synchronized (this) {
+            applyChanges();
+        }
+        if (outbox.isEmpty()) {
+            return;
+        }
+        List<NotificationDTO> pending = new ArrayList<>();
+        NotificationDTO next;
+        while ((next = outbox.poll()) != null) {
+            pending.add(next);
+        }
+        try {
+            List<Admin> admins = adminRepository.findAll();
+            for (NotificationDTO alert : pending) {
+                for (Admin admin : admins) {
+                    notificationService.createNotification(new NotificationDTO(null, admin.getId().longValue(),
+                            "ADMIN", alert.getMessage(), alert.getType(), false, null));
+                }
+            }
+            logger.info("Sent {} stock alert(s) to {} admin(s)", pending.size(), admins.size());
+        } catch (RuntimeException e) {
+            outbox.addAll(pending);
+            logger.error("Failed to send stock alerts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Evaluates the queued stock values in arrival order; call while holding "this".
+     */
+    private void applyChanges() {
+        StockValue change;
+        while ((change = changes.poll()) != null) {
+            if (change.loaded()) {
+                load(change.key(), change.value());
+            } else {
+                stock.put(change.key(), change.value());
+                evaluate(change.key(), true);
+            }
+        }
+    }
+
+    private void evaluate(long key, boolean alert) {
+        Integer value = stock.get(key);
+        Item item = items.get(VariantKey.itemId(key));
+        if (value == null || item == null || !applies(key, item)) {
+            clearLow(key);
+            return;
+        }
+        int threshold = thresholdOf(item);
+        if (low.contains(key)) {
+            if (value >= threshold + hysteresis) {
+                clearLow(key);
+                return;
+            }
+            markLow(key, value);
+            if (value <= 0 && outAlerted.add(key) && alert) {
+                queue(key, "OUT_OF_STOCK", " is out of stock");
+            }
+        } else if (value <= threshold) {
+            markLow(key, value);
+            if (value <= 0) {
+                outAlerted.add(key);
+                if (alert) {
+                    queue(key, "OUT_OF_STOCK", " is out of stock");
+                }
+            } else if (alert) {
+                queue(key, "LOW_STOCK", " is low on stock: " + value + " left (threshold " + threshold + ")");
+            }
+        }
+    }
+
+    private void markLow(long key, int value) {
+        low.put(key, value);
+        cached = null;
+    }
+
+    private void clearLow(long key) {
+        if (low.remove(key)) {
+            cached = null;
+        }
+        outAlerted.remove(key);
+    }
+
+    private void queue(long key, String type, String message) {
+        Item item = items.get(VariantKey.itemId(key));
+        outbox.add(new NotificationDTO(null, null, "ADMIN", item.getName() + label(key) + message, type, false, null));
+    }
+
+    private LowStockAlert toAlert(long key) {
+        Item item = items.get(VariantKey.itemId(key));
+        return new LowStockAlert(item.getId(), item.getName(),
+                item.getCategory() != null ? item.getCategory().getName() : null,
+                VariantKey.variant(VariantKey.eggless(key)), VariantKey.kilograms(VariantKey.weightGrams(key)),
+                stock.get(key), thresholdOf(item));
+    }
+
+    private int thresholdOf(Item item) {
+        return item.getLowStockThreshold() != null ? item.getLowStockThreshold() : defaultThreshold;
+    }
+
+    /**
+     * The eggless shared stock only matters for items that offer an eggless option.
+     */
+    private static boolean applies(long key, Item item) {
+        return !VariantKey.eggless(key) || VariantKey.weightGrams(key) != 0
+                || Boolean.TRUE.equals(item.getHasEggOption());
+    }
+
+    private static boolean sameAlerting(Item a, Item b) {
+        return Objects.equals(a.getLowStockThreshold(), b.getLowStockThreshold())
+                && Objects.equals(a.getHasEggOption(), b.getHasEggOption());
+    }
+
+    private record StockValue(long key, int value, boolean loaded) {
+    }
+
+    private static String label(long key) {
+        List<String> parts = new ArrayList<>();
+        if (VariantKey.eggless(key)) {
+            parts.add("eggless");
+        }
+        if (VariantKey.weightGrams(key) != 0) {
+            parts.add(VariantKey.kilograms(VariantKey.weightGrams(key)) + " kg");
+        }
+        return parts.isEmpty() ? "" : " (" + String.join(", ", parts) + ")";
+    }
+}
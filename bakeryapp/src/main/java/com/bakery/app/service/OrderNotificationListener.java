@@ -0,0 +1,70 @@
+package com.bakery.app.service;
+
+import com.bakery.app.dto.EmailMessage;
+import com.bakery.app.entity.Order;
+import com.bakery.app.event.OrderAddressChangedEvent;
+import com.bakery.app.event.OrderPlacedEvent;
+import com.bakery.app.event.OrderStatusChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.function.Supplier;
+
+/**
+ * Turns order events into outbox emails. Handlers run just before the publishing transaction
+ * commits, so the emails are stored with the order change or not at all, and the request
+ * never waits for the mail server.
+ */
+@Component
+public class OrderNotificationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderNotificationListener.class);
+
+    private final EmailService emailService;
+    private final OutboxService outboxService;
+
+    public OrderNotificationListener(EmailService emailService, OutboxService outboxService) {
+        this.emailService = emailService;
+        this.outboxService = outboxService;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void orderPlaced(OrderPlacedEvent event) {
+        Order order = event.order();
+        enqueue("ORDER_PLACED", order, () -> emailService.orderConfirmationToCustomer(order));
+        enqueue("ORDER_PLACED", order, () -> emailService.orderNotificationToAdmin(order));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void orderStatusChanged(OrderStatusChangedEvent event) {
+        Order order = event.order();
+        if ("Out for Delivery".equalsIgnoreCase(event.status())) {
+            enqueue("ORDER_OUT_FOR_DELIVERY", order, () -> emailService.orderOutForDeliveryToCustomer(order));
+        } else if ("Delivered".equalsIgnoreCase(event.status())) {
+            enqueue("ORDER_DELIVERED", order, () -> emailService.orderDeliveredToCustomer(order));
+            enqueue("ORDER_DELIVERED", order, () -> emailService.orderDeliveredToAdmin(order));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void orderAddressChanged(OrderAddressChangedEvent event) {
+        Order order = event.order();
+        enqueue("ORDER_ADDRESS_CHANGED", order, () -> emailService.addressChangeNotificationToAdmin(order,
+                event.oldAddress(), event.oldPhone(), event.oldLatitude(), event.oldLongitude()));
+    }
+
+    private void enqueue(String type, Order order, Supplier<EmailMessage> email) {
+        EmailMessage message;
+        try {
+            message = email.get();
+        } catch (Exception e) {
+            // A broken template must not fail the order change
+            logger.error("Failed to render {} email for order {}", type, order.getId(), e);
+            return;
+        }
+        outboxService.enqueue(type, message);
+    }
+}
@@ -1,30 +1,50 @@
 package com.bakery.app.service;
 
 import com.bakery.app.dto.OrderPlacementRequest;
+import com.bakery.app.dto.StockDeduction;
 import com.bakery.app.entity.*;
+import com.bakery.app.event.OrderAddressChangedEvent;
+import com.bakery.app.event.OrderPlacedEvent;
+import com.bakery.app.event.OrderStatusChangedEvent;
+import com.bakery.app.util.TransactionHooks;
 import com.bakery.app.repository.OrderRepository;
 import com.razorpay.RazorpayException;
 import com.razorpay.Utils;
 import lombok.RequiredArgsConstructor;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class OrderService {
     
+    private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+    
     private final OrderRepository orderRepository;
     private final CartService cartService;
     private final CustomerService customerService;
     private final ItemService itemService;
     private final OrderHistoryService orderHistoryService;
-    private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PricingService pricingService;
+    private final StockReservationService stockReservationService;
+    
+    private final TransactionTemplate transactionTemplate;
+    // Payment id -> order id of recently placed orders, so client retries skip the database lookup
+    private final Map<String, Integer> recentOrderIds;
     
     @Value("${razorpay.key.secret}")
     private String razorpayKeySecret;
@@ -35,18 +55,54 @@ public class OrderService {
             CustomerService customerService,
             @Lazy ItemService itemService,
             @Lazy OrderHistoryService orderHistoryService,
-            EmailService emailService) {
+            ApplicationEventPublisher eventPublisher,
+            PricingService pricingService,
+            StockReservationService stockReservationService,
+            TransactionTemplate transactionTemplate,
+            @Value("${order.idempotency.cache-size:10000}") int recentOrdersCacheSize) {
         this.orderRepository = orderRepository;
         this.cartService = cartService;
         this.customerService = customerService;
         this.itemService = itemService;
         this.orderHistoryService = orderHistoryService;
-        this.emailService = emailService;
+        this.eventPublisher = eventPublisher;
+        this.pricingService = pricingService;
+        this.stockReservationService = stockReservationService;
+        this.transactionTemplate = transactionTemplate;
+        this.recentOrderIds = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > recentOrdersCacheSize;
+            }
+        };
     }
     
-    @Transactional
+    /**
+     * Places the order paid for by the request's payment. Idempotent per payment id: a retry
+     * of an order that already went through returns that order instead of placing it again.
+     */
     public Order placeOrder(Integer customerId, OrderPlacementRequest request) {
-        // STEP 1: Verify payment signature BEFORE creating order
+        // STEP 1: Verify payment signature BEFORE anything else, so a guessed payment id reveals nothing
+        verifyPayment(request);
+        
+        Order existing = findPlacedOrder(customerId, request.getPaymentId());
+        if (existing != null) {
+            System.out.println("Order " + existing.getId() + " already placed for payment ID: " + request.getPaymentId());
+            return existing;
+        }
+        try {
+            return transactionTemplate.execute(status -> createOrder(customerId, request));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent retry inserted the order for this payment first (unique payment_id)
+            existing = findPlacedOrder(customerId, request.getPaymentId());
+            if (existing == null) {
+                throw e;
+            }
+            return existing;
+        }
+    }
+    
+    private void verifyPayment(OrderPlacementRequest request) {
         try {
             JSONObject options = new JSONObject();
             options.put("razorpay_order_id", request.getPaymentOrderId());
@@ -64,32 +120,63 @@ public class OrderService {
         } catch (RazorpayException e) {
             throw new RuntimeException("Payment verification failed: " + e.getMessage());
         }
-        
+    }
+    
+    /**
+     * The order already placed for the payment, from the recent-payments cache or the database.
+     */
+    private Order findPlacedOrder(Integer customerId, String paymentId) {
+        Integer orderId;
+        synchronized (recentOrderIds) {
+            orderId = recentOrderIds.get(paymentId);
+        }
+        Order order = orderId != null
+                ? orderRepository.findById(orderId).orElse(null)
+                : orderRepository.findByPaymentId(paymentId).orElse(null);
+        if (order != null && !order.getCustomer().getId().equals(customerId)) {
+            throw new RuntimeException("Payment " + paymentId + " was used for another customer's order");
+        }
+        return order;
+    }
+    
+    private Order createOrder(Integer customerId, OrderPlacementRequest request) {
         // STEP 2: Proceed with order creation only after payment verification
         Customer customer = customerService.getCustomerById(customerId);
-        Cart cart = cartService.getCartByCustomerId(customerId);
+        // From the database, not the cart cache: these are the lines clearCart deletes below
+        Cart cart = cartService.getCartForCheckout(customerId);
         
         if (cart.getItems().isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
         
-        // Calculate total amount using stored prices (for cakes) or regular prices
-        double totalAmount = cart.getItems().stream()
-                .mapToDouble(cartItem -> {
-                    double itemPrice;
-                    // Use stored price if available (for cakes with weight pricing)
-                    if (cartItem.getPriceAtAddition() != null && cartItem.getPriceAtAddition() > 0) {
-                        itemPrice = cartItem.getPriceAtAddition();
-                    } else {
-                        itemPrice = cartItem.getItem().getPrice();
-                        // Add ₹30 for eggless items (only if not using stored price)
-                        if ("EGGLESS".equals(cartItem.getEggType())) {
-                            itemPrice += 30;
-                        }
-                    }
-                    return itemPrice * cartItem.getQuantity();
-                })
-                .sum();
+        // Price the lines first; the order is charged exactly what its lines add up to
+        List<OrderItem> orderItems = new ArrayList<>();
+        List<StockDeduction> stockDeductions = new ArrayList<>();
+        long totalPaise = 0;
+        for (CartItem cartItem : cart.getItems()) {
+            // Fetch the item from database to ensure it's a managed entity
+            Item managedItem = itemService.getItemById(cartItem.getItem().getId());
+            long unitPaise = pricingService.unitPriceInPaise(managedItem, cartItem.getEggType(), cartItem.getSelectedWeight());
+            totalPaise += unitPaise * cartItem.getQuantity();
+            
+            OrderItem orderItem = new OrderItem();
+            orderItem.setItem(managedItem);
+            orderItem.setItemName(managedItem.getName());  // Store name for history
+            orderItem.setQuantity(cartItem.getQuantity());
+            orderItem.setPrice(unitPaise / 100.0);
+            orderItem.setSelectedWeight(cartItem.getSelectedWeight());  // Store selected weight for cakes
+            orderItem.setEggType(cartItem.getEggType());  // Store egg type
+            orderItems.add(orderItem);
+            
+            stockDeductions.add(new StockDeduction(managedItem.getId(), cartItem.getEggType(), cartItem.getQuantity(),
+                    cartItem.getSelectedWeight()));
+        }
+        double totalAmount = totalPaise / 100.0;
+        if (totalAmount != cart.getSummary().getTotal()) {
+            // The cart's running totals drifted from its lines (e.g. a reprice since they were last written)
+            logger.warn("Cart of customer {} totals {} but its lines price at {}; charging the lines",
+                    customerId, cart.getSummary().getTotal(), totalAmount);
+        }
         
         // Create order
         Order order = new Order();
@@ -110,62 +197,28 @@ public class OrderService {
         order.setPaymentSignature(request.getPaymentSignature());
         order.setPaymentVerified(true);  // Already verified above
         
-        Order savedOrder = orderRepository.save(order);
+        // Flushed right away so a duplicate payment hits the unique index before stock is claimed
+        Order savedOrder = orderRepository.saveAndFlush(order);
+        orderItems.forEach(orderItem -> orderItem.setOrder(savedOrder));
         
-        // Create order items from cart items
-        List<OrderItem> orderItems = new ArrayList<>();
-        for (CartItem cartItem : cart.getItems()) {
-            // Fetch the item from database to ensure it's a managed entity
-            Item managedItem = itemService.getItemById(cartItem.getItem().getId());
-            
-            // Check stock availability
-            if (managedItem.getStock() < cartItem.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for item: " + managedItem.getName() + 
-                                         ". Available: " + managedItem.getStock() + 
-                                         ", Requested: " + cartItem.getQuantity());
-            }
-            
-            OrderItem orderItem = new OrderItem();
-            orderItem.setOrder(savedOrder);
-            orderItem.setItem(managedItem);
-            orderItem.setItemName(managedItem.getName());  // Store name for history
-            orderItem.setQuantity(cartItem.getQuantity());
-            
-            // Use stored price if available (for cakes with weight pricing), otherwise calculate
-            double itemPrice;
-            if (cartItem.getPriceAtAddition() != null && cartItem.getPriceAtAddition() > 0) {
-                itemPrice = cartItem.getPriceAtAddition();  // Use price stored when added to cart
-            } else {
-                itemPrice = managedItem.getPrice();
-                if ("EGGLESS".equals(cartItem.getEggType())) {
-                    itemPrice += 30; // Add ₹30 for eggless
-                }
-            }
-            orderItem.setPrice(itemPrice);
-            orderItem.setSelectedWeight(cartItem.getSelectedWeight());  // Store selected weight for cakes
-            orderItem.setEggType(cartItem.getEggType());  // Store egg type
-            orderItems.add(orderItem);
-            
-            // Update stock based on egg type
-            itemService.updateStock(managedItem.getId(), cartItem.getQuantity(), cartItem.getEggType());
-        }
+        // Convert the checkout hold (if still active) and deduct stock for all lines at once;
+        // fails the order if any line is short
+        stockReservationService.claim(request.getPaymentOrderId(), stockDeductions, savedOrder.getId());
+        // The lines are persisted by cascade at commit, as one insert batch
         savedOrder.setOrderItems(orderItems);
         
         // Clear cart after placing order
         cartService.clearCart(customerId);
         
-        Order finalOrder = orderRepository.save(savedOrder);
-        
-        // Send email notifications (async - don't fail order if email fails)
-        try {
-            emailService.sendOrderConfirmationToCustomer(finalOrder);
-            emailService.sendOrderNotificationToAdmin(finalOrder);
-        } catch (Exception e) {
-            // Log error but don't fail the order
-            System.err.println("Failed to send order emails: " + e.getMessage());
-        }
+        // Order emails are queued in the outbox as part of this transaction
+        eventPublisher.publishEvent(new OrderPlacedEvent(savedOrder));
+        TransactionHooks.afterCommit(() -> {
+            synchronized (recentOrderIds) {
+                recentOrderIds.put(request.getPaymentId(), savedOrder.getId());
+            }
+        });
         
-        return finalOrder;
+        return savedOrder;
     }
     
     @Transactional(readOnly = true)
@@ -241,38 +294,19 @@ public class OrderService {
             
             System.out.println("Order status updated successfully to: " + status);
             
-            // Send email for "Out for Delivery" status
-            if ("Out for Delivery".equalsIgnoreCase(status)) {
-                try {
-                    emailService.sendOrderOutForDeliveryToCustomer(updatedOrder);
-                    System.out.println("Out for delivery email sent to customer");
-                } catch (Exception emailError) {
-                    System.err.println("Failed to send out for delivery email: " + emailError.getMessage());
-                    // Don't fail the order update if email fails
-                }
-                return updatedOrder;
-            }
+            // "Out for Delivery" and "Delivered" emails are queued in the outbox as part of this transaction
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(updatedOrder, status));
             
             // If NOT delivered, just return
             if (!"Delivered".equalsIgnoreCase(status)) {
                 return updatedOrder;
             }
             
-            // If delivered, move to history and send emails
+            // If delivered, move to history
             System.out.println("Moving order to history...");
             try {
                 orderHistoryService.moveOrderToHistory(updatedOrder);
                 System.out.println("Order " + orderId + " moved to history successfully");
-                
-                // Send delivery confirmation emails
-                try {
-                    emailService.sendOrderDeliveredToCustomer(updatedOrder);
-                    emailService.sendOrderDeliveredToAdmin(updatedOrder);
-                    System.out.println("Delivery confirmation emails sent successfully");
-                } catch (Exception emailError) {
-                    System.err.println("Failed to send delivery emails: " + emailError.getMessage());
-                    // Don't fail the order update if email fails
-                }
             } catch (Exception e) {
                 System.err.println("Failed to move order to history: " + e.getMessage());
                 e.printStackTrace();
@@ -305,12 +339,8 @@ public class OrderService {
         // Restore stock for all items
         for (OrderItem orderItem : order.getOrderItems()) {
             if (orderItem.getItem() != null) {
-                Item item = orderItem.getItem();
-                item.setStock(item.getStock() + orderItem.getQuantity());
-                if (item.getStock() > 0) {
-                    item.setAvailable(true);
-                }
-                itemService.updateItem(item.getId(), convertItemToRequest(item));
+                itemService.restoreStock(orderItem.getItem().getId(), orderItem.getEggType(),
+                        orderItem.getSelectedWeight(), orderItem.getQuantity(), orderId);
             }
         }
         
@@ -353,28 +383,9 @@ public class OrderService {
         
         Order updatedOrder = orderRepository.save(order);
         
-        // Send email notification to admin
-        try {
-            emailService.sendAddressChangeNotificationToAdmin(updatedOrder, oldAddress, oldPhone, oldLatitude, oldLongitude);
-        } catch (Exception e) {
-            System.err.println("Failed to send address change notification: " + e.getMessage());
-            // Don't fail the update if email fails
-        }
+        // Email notification to admin is queued in the outbox as part of this transaction
+        eventPublisher.publishEvent(new OrderAddressChangedEvent(updatedOrder, oldAddress, oldPhone, oldLatitude, oldLongitude));
         
         return updatedOrder;
     }
-    
-    private com.bakery.app.dto.ItemRequest convertItemToRequest(Item item) {
-        com.bakery.app.dto.ItemRequest request = new com.bakery.app.dto.ItemRequest();
-        request.setName(item.getName());
-        request.setDescription(item.getDescription());
-        request.setPrice(item.getPrice());
-        request.setGrams(item.getGrams());
-        request.setImageUrl(item.getImageUrl());
-        request.setCategoryId(item.getCategory().getId());
-        request.setStock(item.getStock());
-        request.setFeatured(item.getFeatured());
-        request.setAvailable(item.getAvailable());
-        return request;
-    }
 }
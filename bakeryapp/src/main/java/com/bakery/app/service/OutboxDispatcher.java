@@ -0,0 +1,163 @@
+package com.bakery.app.service;
+
+import com.bakery.app.config.AsyncConfig;
+import com.bakery.app.dto.EmailMessage;
+import com.bakery.app.entity.OutboxMessage;
+import com.bakery.app.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends queued emails. Each batch is claimed in a short transaction with
+ * {@code FOR UPDATE SKIP LOCKED} and leased by pushing its due time forward, so several app
+ * nodes can drain the same table without sending a message twice; SMTP then runs outside any
+ * transaction. Failed sends are retried with exponential backoff until the attempts run out.
+ * Delivery is at-least-once: a node that dies mid-batch leaves its lease to expire and the
+ * rows are sent again.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor executor;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final Duration retention;
+
+    public OutboxDispatcher(OutboxMessageRepository outboxMessageRepository,
+                            EmailService emailService,
+                            TransactionTemplate transactionTemplate,
+                            @Qualifier(AsyncConfig.OUTBOX_EXECUTOR) TaskExecutor executor,
+                            @Value("${outbox.batch-size:50}") int batchSize,
+                            @Value("${outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.lease-seconds:300}") long leaseSeconds,
+                            @Value("${outbox.backoff-seconds:30}") long backoffSeconds,
+                            @Value("${outbox.max-backoff-seconds:3600}") long maxBackoffSeconds,
+                            @Value("${outbox.retention-days:7}") long retentionDays) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.backoff = Duration.ofSeconds(backoffSeconds);
+        this.maxBackoff = Duration.ofSeconds(maxBackoffSeconds);
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    /**
+     * Drains the outbox soon on the outbox executor, which runs one drain at a time.
+     */
+    public void nudge() {
+        executor.execute(this::drain);
+    }
+
+    /**
+     * Picks up messages queued by other nodes or before a restart, and retries due failures.
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-ms:10000}")
+    public void poll() {
+        nudge();
+    }
+
+    @Scheduled(cron = "${outbox.cleanup.cron:0 45 3 * * *}")
+    public void deleteSent() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxMessageRepository.deleteSentBefore(LocalDateTime.now().minus(retention)));
+        logger.info("Deleted {} sent outbox message(s)", deleted);
+    }
+
+    private void drain() {
+        try {
+            while (dispatchBatch() == batchSize) {
+                // Full batch: there may be more due
+            }
+        } catch (RuntimeException e) {
+            logger.error("Outbox drain failed", e);
+        }
+    }
+
+    /**
+     * @return number of messages claimed
+     */
+    private int dispatchBatch() {
+        List<OutboxMessage> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> due = outboxMessageRepository.lockDue(now, batchSize);
+            if (!due.isEmpty()) {
+                outboxMessageRepository.lease(due.stream().map(OutboxMessage::getId).toList(), now.plus(lease));
+            }
+            return due;
+        });
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> sent = new ArrayList<>(batch.size());
+        List<OutboxMessage> failed = new ArrayList<>();
+        for (OutboxMessage message : batch) {
+            try {
+                emailService.send(new EmailMessage(message.getRecipient(), message.getSubject(), message.getBody()));
+                sent.add(message.getId());
+            } catch (Exception e) {
+                message.setLastError(String.valueOf(e.getMessage()));
+                failed.add(message);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (!sent.isEmpty()) {
+                outboxMessageRepository.markSent(sent, now);
+            }
+            for (OutboxMessage message : failed) {
+                int attempts = message.getAttempts() + 1;
+                String error = message.getLastError();
+                if (error.length() > 1000) {
+                    error = error.substring(0, 1000);
+                }
+                if (attempts >= maxAttempts) {
+                    logger.error("Giving up on {} email {} to {} after {} attempts: {}",
+                            message.getType(), message.getId(), message.getRecipient(), attempts, error);
+                    outboxMessageRepository.markFailed(message.getId(), "FAILED", attempts, now, error);
+                } else {
+                    LocalDateTime next = now.plus(backoffAfter(attempts));
+                    logger.warn("Failed to send {} email {} (attempt {}), retrying at {}: {}",
+                            message.getType(), message.getId(), attempts, next, error);
+                    outboxMessageRepository.markFailed(message.getId(), "PENDING", attempts, next, error);
+                }
+            }
+        });
+        logger.info("Sent {} outbox email(s), {} failed", sent.size(), failed.size());
+        return batch.size();
+    }
+
+    /**
+     * Doubles per attempt up to the maximum, with up to 20% jitter so failures do not retry in lockstep.
+     */
+    private Duration backoffAfter(int attempts) {
+        long millis = backoff.toMillis() << Math.min(attempts - 1, 20);
+        millis = Math.min(millis, maxBackoff.toMillis());
+        return Duration.ofMillis(millis + ThreadLocalRandom.current().nextLong(millis / 5 + 1));
+    }
+}
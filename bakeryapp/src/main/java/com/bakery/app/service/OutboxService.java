@@ -0,0 +1,33 @@
+package com.bakery.app.service;
+
+import com.bakery.app.dto.EmailMessage;
+import com.bakery.app.entity.OutboxMessage;
+import com.bakery.app.repository.OutboxMessageRepository;
+import com.bakery.app.util.TransactionHooks;
+import org.springframework.stereotype.Service;
+
+/**
+ * Queues emails in the outbox table. Call inside the transaction that makes the change, so
+ * the email is stored if and only if the change commits; {@link OutboxDispatcher} sends it.
+ */
+@Service
+public class OutboxService {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final OutboxDispatcher outboxDispatcher;
+
+    public OutboxService(OutboxMessageRepository outboxMessageRepository, OutboxDispatcher outboxDispatcher) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.outboxDispatcher = outboxDispatcher;
+    }
+
+    public void enqueue(String type, EmailMessage email) {
+        OutboxMessage message = new OutboxMessage();
+        message.setType(type);
+        message.setRecipient(email.getTo());
+        message.setSubject(email.getSubject());
+        message.setBody(email.getHtml());
+        outboxMessageRepository.save(message);
+        TransactionHooks.afterCommit(outboxDispatcher::nudge);
+    }
+}
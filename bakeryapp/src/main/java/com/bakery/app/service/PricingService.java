@@ -0,0 +1,51 @@
+package com.bakery.app.service;
+
+import com.bakery.app.entity.Item;
+import com.bakery.app.util.WeightPriceTable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Server-side unit prices for cart and checkout. Clients may display their own
+ * calculation, but the price a line is sold at always comes from here.
+ */
+@Service
+@RequiredArgsConstructor
+public class PricingService {
+    
+    public static final long EGGLESS_SURCHARGE_PAISE = 30_00;
+    
+    private final CatalogCache catalogCache;
+    
+    /**
+     * Unit price in rupees for the given variant: the weight price for cakes (when a weight
+     * is selected) or the item price, plus the eggless surcharge.
+     */
+    public double unitPrice(Item item, String eggType, Double selectedWeight) {
+        return unitPriceInPaise(item, eggType, selectedWeight) / 100.0;
+    }
+    
+    public long unitPriceInPaise(Item item, String eggType, Double selectedWeight) {
+        long paise;
+        if (selectedWeight != null) {
+            int grams = WeightPriceTable.toGrams(selectedWeight);
+            paise = priceTableFor(item).priceInPaise(grams)
+                    .orElseThrow(() -> new RuntimeException("Weight " + selectedWeight + " kg is not available for item: " + item.getName()));
+        } else {
+            paise = Math.round((item.getPrice() != null ? item.getPrice() : 0.0) * 100);
+        }
+        if ("EGGLESS".equals(eggType)) {
+            paise += EGGLESS_SURCHARGE_PAISE;
+        }
+        return paise;
+    }
+    
+    private WeightPriceTable priceTableFor(Item item) {
+        WeightPriceTable table = catalogCache.snapshot().getPriceTable(item.getId());
+        if (table.isCompiledFrom(item.getPricePerKg())) {
+            return table;
+        }
+        // The item was changed in this transaction and the snapshot has not caught up yet
+        return WeightPriceTable.parse(item.getPricePerKg());
+    }
+}
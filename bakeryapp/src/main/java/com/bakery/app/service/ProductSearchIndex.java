@@ -0,0 +1,270 @@
+package com.bakery.app.service;
+
+import com.bakery.app.entity.Item;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over item name, description and category name.
+ * Every query token must match a term exactly, as a prefix, or within one edit;
+ * results are ranked by the summed field weight of the best match per token.
+ */
+@Component
+public class ProductSearchIndex implements CatalogListener {
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final float EXACT_MATCH = 1.0f;
+    private static final float PREFIX_MATCH = 0.7f;
+    private static final float FUZZY_MATCH = 0.5f;
+
+    // Shorter tokens produce too many accidental one-edit matches
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    // term -> (itemId -> field weight); sorted so prefix lookups are a range scan
+    private final NavigableMap<String, Map<Integer, Float>> postings = new TreeMap<>();
+    // Deletion neighbourhood: each term and each of its one-character deletions -> terms.
+    // Two terms within one edit always share a key, so fuzzy lookups never scan the vocabulary.
+    private final Map<String, Set<String>> termsByDeletion = new HashMap<>();
+    // itemId -> terms indexed for it, so updates and deletes can retract old postings
+    private final Map<Integer, Map<String, Float>> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void catalogLoaded(Collection<Item> items) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByDeletion.clear();
+            documents.clear();
+            items.forEach(this::addDocument);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void catalogChanged(Collection<Item> upserts, Collection<Integer> removals) {
+        lock.writeLock().lock();
+        try {
+            removals.forEach(this::removeDocument);
+            for (Item item : upserts) {
+                removeDocument(item.getId());
+                addDocument(item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns matching item ids, best match first.
+     */
+    public List<Integer> search(String query, int limit) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Float> scores = null;
+            for (String token : queryTokens) {
+                Map<Integer, Float> tokenScores = matchToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // All tokens must match: keep only items present in both
+                    Map<Integer, Float> previous = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<Integer, Float> entry : tokenScores.entrySet()) {
+                        Float score = previous.get(entry.getKey());
+                        if (score != null) {
+                            scores.put(entry.getKey(), score + entry.getValue());
+                        }
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<Map.Entry<Integer, Float>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Integer, Float>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey()));
+            return ranked.stream()
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Integer, Float> matchToken(String token) {
+        Map<Integer, Float> scores = new HashMap<>();
+
+        Map<Integer, Float> exact = postings.get(token);
+        if (exact != null) {
+            exact.forEach((itemId, weight) -> scores.merge(itemId, weight * EXACT_MATCH, Math::max));
+        }
+
+        for (Map.Entry<String, Map<Integer, Float>> entry
+                : postings.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+            entry.getValue().forEach((itemId, weight) -> scores.merge(itemId, weight * PREFIX_MATCH, Math::max));
+        }
+
+        if (token.length() >= MIN_FUZZY_LENGTH) {
+            Set<String> candidates = new HashSet<>();
+            for (String key : deletionKeys(token)) {
+                Set<String> terms = termsByDeletion.get(key);
+                if (terms != null) {
+                    candidates.addAll(terms);
+                }
+            }
+            for (String term : candidates) {
+                // Shared keys also pair up e.g. transpositions, which are two edits
+                if (!term.equals(token) && withinOneEdit(token, term)) {
+                    postings.get(term).forEach((itemId, weight) -> scores.merge(itemId, weight * FUZZY_MATCH, Math::max));
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void addTerm(String term) {
+        if (term.length() >= MIN_FUZZY_LENGTH - 1) {
+            for (String key : deletionKeys(term)) {
+                termsByDeletion.computeIfAbsent(key, k -> new HashSet<>()).add(term);
+            }
+        }
+    }
+
+    private void removeTerm(String term) {
+        if (term.length() >= MIN_FUZZY_LENGTH - 1) {
+            for (String key : deletionKeys(term)) {
+                Set<String> terms = termsByDeletion.get(key);
+                if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                    termsByDeletion.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * The term itself and every string left by deleting one of its characters.
+     */
+    static Set<String> deletionKeys(String term) {
+        Set<String> keys = new HashSet<>(term.length() + 1);
+        keys.add(term);
+        for (int i = 0; i < term.length(); i++) {
+            keys.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return keys;
+    }
+
+    private void addDocument(Item item) {
+        Map<String, Float> terms = new HashMap<>();
+        addField(terms, item.getName(), NAME_WEIGHT);
+        addField(terms, item.getDescription(), DESCRIPTION_WEIGHT);
+        if (item.getCategory() != null) {
+            addField(terms, item.getCategory().getName(), CATEGORY_WEIGHT);
+        }
+        documents.put(item.getId(), terms);
+        terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> {
+            addTerm(t);
+            return new HashMap<>();
+        }).put(item.getId(), weight));
+    }
+
+    private void removeDocument(Integer itemId) {
+        Map<String, Float> terms = documents.remove(itemId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Integer, Float> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(itemId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                    removeTerm(term);
+                }
+            }
+        }
+    }
+
+    private static void addField(Map<String, Float> terms, String text, float weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Math::max);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * True if {@code a} and {@code b} differ by at most one insertion, deletion or substitution.
+     */
+    static boolean withinOneEdit(String a, String b) {
+        int lengthDiff = a.length() - b.length();
+        if (lengthDiff > 1 || lengthDiff < -1) {
+            return false;
+        }
+        if (lengthDiff < 0) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        int i = 0;
+        int j = 0;
+        boolean edited = false;
+        while (i < a.length() && j < b.length()) {
+            if (a.charAt(i) == b.charAt(j)) {
+                i++;
+                j++;
+                continue;
+            }
+            if (edited) {
+                return false;
+            }
+            edited = true;
+            i++;
+            if (a.length() == b.length()) {
+                j++;
+            }
+        }
+        return !edited || i == a.length();
+    }
+}
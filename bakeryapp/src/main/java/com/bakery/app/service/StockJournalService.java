@@ -0,0 +1,109 @@
+package com.bakery.app.service;
+
+import com.bakery.app.entity.Item;
+import com.bakery.app.entity.StockMovement;
+import com.bakery.app.entity.StockSnapshot;
+import com.bakery.app.repository.StockJournalRepository;
+import com.bakery.app.repository.StockMovementRepository;
+import com.bakery.app.repository.StockSnapshotRepository;
+import com.bakery.app.util.VariantKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Answers "what was the stock at time T" from the movement journal. Snapshots are taken
+ * periodically so a lookup only has to sum the movements since the nearest snapshot.
+ */
+@Service
+public class StockJournalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockJournalService.class);
+
+    private static final int MAX_MOVEMENTS = 200;
+
+    private final StockMovementRepository movementRepository;
+    private final StockSnapshotRepository snapshotRepository;
+    private final StockJournalRepository journalRepository;
+    private final InventoryLedger inventoryLedger;
+    private final TransactionTemplate transactionTemplate;
+
+    public StockJournalService(StockMovementRepository movementRepository,
+                               StockSnapshotRepository snapshotRepository,
+                               StockJournalRepository journalRepository,
+                               InventoryLedger inventoryLedger,
+                               TransactionTemplate transactionTemplate) {
+        this.movementRepository = movementRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.journalRepository = journalRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Snapshots every variant row. Runs with ledger writes paused, so variant_stock contains
+     * exactly the movements up to the highest journaled id.
+     */
+    @Scheduled(cron = "${stock.snapshot.cron:0 0 3 * * *}")
+    public void takeSnapshot() {
+        inventoryLedger.flush();
+        inventoryLedger.whileWritesPaused(() -> transactionTemplate.executeWithoutResult(status -> {
+            long lastMovementId = movementRepository.findMaxId();
+            int rows = journalRepository.snapshotAllVariants(lastMovementId, LocalDateTime.now());
+            logger.info("Wrote {} stock snapshot row(s) up to movement {}", rows, lastMovementId);
+        }));
+    }
+
+    /**
+     * Seeds the first snapshot so lookups work before the first scheduled run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void snapshotIfEmpty() {
+        if (snapshotRepository.count() == 0) {
+            takeSnapshot();
+        }
+    }
+
+    /**
+     * Records the opening stock of a new item; none of its movements exist yet.
+     */
+    @Transactional
+    public void itemCreated(Item item) {
+        LocalDateTime now = LocalDateTime.now();
+        snapshotRepository.saveAll(List.of(
+                new StockSnapshot(null, item.getId(), VariantKey.REGULAR, 0, item.getStock(), 0L, now),
+                new StockSnapshot(null, item.getId(), VariantKey.EGGLESS, 0,
+                        item.getEgglessStock() != null ? item.getEgglessStock() : 0, 0L, now)));
+    }
+
+    /**
+     * Stock of an item variant as of the given time: nearest earlier snapshot plus the movements after it.
+     * A null weight means the item's shared stock.
+     */
+    @Transactional(readOnly = true)
+    public int stockAt(Integer itemId, String eggType, Double weightKg, LocalDateTime at) {
+        String variant = VariantKey.variant(VariantKey.isEggless(eggType));
+        int weightGrams = VariantKey.grams(weightKg);
+        StockSnapshot snapshot = snapshotRepository
+                .findFirstByItemIdAndVariantAndWeightGramsAndTakenAtLessThanEqualOrderByTakenAtDescIdDesc(
+                        itemId, variant, weightGrams, at)
+                .orElseThrow(() -> new RuntimeException("No stock history for item " + itemId + " before " + at));
+        long delta = movementRepository.sumDeltaAfter(itemId, variant, weightGrams, snapshot.getLastMovementId(), at);
+        return Math.toIntExact(snapshot.getStock() + delta);
+    }
+
+    @Transactional(readOnly = true)
+    public List<StockMovement> recentMovements(Integer itemId, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_MOVEMENTS));
+        return movementRepository.findByItemIdOrderByIdDesc(itemId, PageRequest.of(0, size));
+    }
+}
@@ -0,0 +1,17 @@
+package com.bakery.app.service;
+
+/**
+ * Receives stock values from {@link InventoryLedger} whenever a change to a variant commits
+ * or rolls back; uncommitted changes are not reported on their own. Callbacks run while the
+ * ledger holds the variant's lock, so they arrive in order per variant and must be cheap.
+ * Keys are packed {@link com.bakery.app.util.VariantKey} values.
+ */
+public interface StockListener {
+
+    /**
+     * Called when the ledger starts tracking a variant, with its stock at that point.
+     */
+    void stockLoaded(long variantKey, int stock);
+
+    void stockChanged(long variantKey, int stock);
+}
@@ -0,0 +1,330 @@
+package com.bakery.app.service;
+
+import com.bakery.app.dto.StockDeduction;
+import com.bakery.app.entity.Cart;
+import com.bakery.app.entity.Item;
+import com.bakery.app.entity.StockReservation;
+import com.bakery.app.repository.CartRepository;
+import com.bakery.app.repository.StockReservationRepository;
+import com.bakery.app.util.HashedTimerWheel;
+import com.bakery.app.util.TransactionHooks;
+import com.bakery.app.util.VariantKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Holds cart stock for the length of the Razorpay payment window. A hold is taken under a
+ * provisional id just before the Razorpay order is created and moved to the Razorpay order
+ * id once it exists, so an out-of-stock cart never costs a Razorpay order. It is turned into
+ * a real deduction by placeOrder, and dropped when the payment fails or the hold expires. A customer has at most one hold; creating another
+ * Razorpay order replaces it. Holds live in memory so availability checks stay cheap; the
+ * stock_reservations table only exists to restore them after a restart.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 1024;
+
+    private final StockReservationRepository reservationRepository;
+    private final CartRepository cartRepository;
+    private final CatalogCache catalogCache;
+    private final InventoryLedger inventoryLedger;
+    private final Duration ttl;
+
+    // Razorpay order id -> hold, for holds whose reservation has committed
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    // Customer id -> Razorpay order id of the customer's latest hold, committed or not
+    private final Map<Integer, String> holdByCustomer = new ConcurrentHashMap<>();
+    // Resolved StockDeduction.variantKey() -> units held across all pending payments
+    private final Map<Long, Integer> held = new ConcurrentHashMap<>();
+    private final HashedTimerWheel<String> expiryWheel =
+            new HashedTimerWheel<>(WHEEL_SIZE, TICK_MILLIS, System.currentTimeMillis());
+    // Serializes check-then-hold so two payments cannot both claim the last unit
+    private final Object reserveLock = new Object();
+
+    public StockReservationService(StockReservationRepository reservationRepository,
+                                   CartRepository cartRepository,
+                                   CatalogCache catalogCache,
+                                   InventoryLedger inventoryLedger,
+                                   @Value("${reservation.ttl-minutes:15}") long ttlMinutes) {
+        this.reservationRepository = reservationRepository;
+        this.cartRepository = cartRepository;
+        this.catalogCache = catalogCache;
+        this.inventoryLedger = inventoryLedger;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    public int heldQuantity(Integer itemId, String eggType, Double weightKg) {
+        return held.getOrDefault(inventoryLedger.resolveKey(itemId, eggType, weightKg), 0);
+    }
+
+    public int availableStock(Integer itemId, String eggType) {
+        return availableStock(itemId, eggType, null);
+    }
+
+    /**
+     * Stock the item's variant draws from minus what pending payments are holding. Served from memory.
+     */
+    public int availableStock(Integer itemId, String eggType, Double weightKg) {
+        return inventoryLedger.stock(itemId, eggType, weightKg) - heldQuantity(itemId, eggType, weightKg);
+    }
+
+    /**
+     * Holds the customer's current cart for the given Razorpay order, replacing any hold the
+     * customer already has.
+     */
+    @Transactional
+    public void reserveCart(String razorpayOrderId, Integer customerId) {
+        Cart cart = cartRepository.findByCustomerIdWithItems(customerId)
+                .orElseThrow(() -> new RuntimeException("Cart not found for customer: " + customerId));
+        if (cart.getItems().isEmpty()) {
+            throw new RuntimeException("Cart is empty");
+        }
+        List<StockDeduction> lines = cart.getItems().stream()
+                .map(ci -> new StockDeduction(ci.getItem().getId(), ci.getEggType(), ci.getQuantity(), ci.getSelectedWeight()))
+                .toList();
+        reserve(razorpayOrderId, customerId, lines);
+    }
+
+    /**
+     * Holds the lines for the given Razorpay order in place of the customer's previous hold.
+     * The units count as held from here on so no other payment can take them, but the hold
+     * itself is only registered once the reservation rows commit; a rollback gives the units back.
+     */
+    @Transactional
+    public void reserve(String razorpayOrderId, Integer customerId, List<StockDeduction> lines) {
+        List<StockDeduction> merged = StockDeduction.merge(inventoryLedger.resolve(lines));
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        Hold hold = new Hold(customerId, merged, toMillis(expiresAt));
+        String previous;
+
+        synchronized (reserveLock) {
+            if (holds.containsKey(razorpayOrderId) || razorpayOrderId.equals(holdByCustomer.get(customerId))) {
+                throw new RuntimeException("Stock is already reserved for payment order: " + razorpayOrderId);
+            }
+            // The hold being replaced does not count against the customer's new cart
+            previous = holdByCustomer.get(customerId);
+            Hold replaced = previous != null ? holds.get(previous) : null;
+            Map<Long, Integer> ownHeld = replaced != null ? replaced.quantities() : Map.of();
+
+            CatalogSnapshot snapshot = catalogCache.snapshot();
+            for (StockDeduction line : merged) {
+                Item item = snapshot.getItem(line.getItemId());
+                if (item == null) {
+                    throw new RuntimeException("Item not found with id: " + line.getItemId());
+                }
+                int available = availableStock(item.getId(), line.getEggType(), line.getSelectedWeight())
+                        + ownHeld.getOrDefault(line.variantKey(), 0);
+                if (available < line.getQuantity()) {
+                    throw new RuntimeException("Insufficient stock for item: " + item.getName() +
+                                               ". Available: " + Math.max(0, available) +
+                                               ", Requested: " + line.getQuantity());
+                }
+            }
+            holdByCustomer.put(customerId, razorpayOrderId);
+            addHeld(merged, 1);
+        }
+
+        TransactionHooks.afterRollback(() -> {
+            synchronized (reserveLock) {
+                addHeld(merged, -1);
+                if (holdByCustomer.remove(customerId, razorpayOrderId) && previous != null && holds.containsKey(previous)) {
+                    holdByCustomer.put(customerId, previous);
+                }
+            }
+        });
+        TransactionHooks.afterCommit(() -> {
+            if (previous != null && releaseHold(previous)) {
+                logger.info("Replaced stock reservation for payment order {} with {}", previous, razorpayOrderId);
+            }
+            synchronized (reserveLock) {
+                // A newer reservation for this customer committed first; this one is already stale
+                if (!razorpayOrderId.equals(holdByCustomer.get(customerId))) {
+                    addHeld(merged, -1);
+                    return;
+                }
+                holds.put(razorpayOrderId, hold);
+            }
+            expiryWheel.schedule(razorpayOrderId, hold.expiresAtMillis());
+        });
+
+        if (previous != null) {
+            reservationRepository.deleteByRazorpayOrderId(previous);
+        }
+        reservationRepository.saveAllAndFlush(merged.stream()
+                .map(line -> new StockReservation(null, razorpayOrderId, customerId, line.getItemId(),
+                        line.getEggType(), VariantKey.grams(line.getSelectedWeight()), line.getQuantity(), expiresAt))
+                .toList());
+        logger.info("Reserved {} line(s) for payment order {} until {}", merged.size(), razorpayOrderId, expiresAt);
+    }
+
+    /**
+     * Moves a committed hold from the provisional id it was reserved under to the Razorpay
+     * order created for it. Throws if the hold is gone, e.g. replaced by a newer checkout.
+     */
+    @Transactional
+    public void rekey(String holdId, String razorpayOrderId) {
+        if (reservationRepository.rekey(holdId, razorpayOrderId) == 0) {
+            throw new RuntimeException("Stock reservation " + holdId + " no longer exists; please try again");
+        }
+        TransactionHooks.afterCommit(() -> {
+            Hold hold;
+            synchronized (reserveLock) {
+                hold = holds.remove(holdId);
+                if (hold == null) {
+                    return;
+                }
+                holds.put(razorpayOrderId, hold);
+                holdByCustomer.replace(hold.customerId(), holdId, razorpayOrderId);
+            }
+            // The provisional id's wheel entry finds no hold and is skipped
+            expiryWheel.schedule(razorpayOrderId, hold.expiresAtMillis());
+        });
+    }
+
+    /**
+     * Deducts stock for placeOrder. Lines are checked against stock not held by other
+     * payments (the order's own hold counts as available); the hold is dropped once the
+     * order commits.
+     */
+    @Transactional
+    public void claim(String razorpayOrderId, List<StockDeduction> lines, Integer orderId) {
+        Hold own = razorpayOrderId != null ? holds.get(razorpayOrderId) : null;
+        Map<Long, Integer> ownHeld = own != null ? own.quantities() : Map.of();
+
+        synchronized (reserveLock) {
+            CatalogSnapshot snapshot = catalogCache.snapshot();
+            for (StockDeduction line : StockDeduction.merge(inventoryLedger.resolve(lines))) {
+                Item item = snapshot.getItem(line.getItemId());
+                if (item == null) {
+                    continue;  // the deduction reports missing items
+                }
+                int available = availableStock(item.getId(), line.getEggType(), line.getSelectedWeight())
+                        + ownHeld.getOrDefault(line.variantKey(), 0);
+                if (available < line.getQuantity()) {
+                    throw new RuntimeException("Insufficient stock for item: " + item.getName() +
+                                               ". Available: " + Math.max(0, available) +
+                                               ", Requested: " + line.getQuantity());
+                }
+            }
+            inventoryLedger.deduct(lines, InventoryLedger.ORDER, orderId);
+        }
+
+        if (own != null) {
+            reservationRepository.deleteByRazorpayOrderId(razorpayOrderId);
+            TransactionHooks.afterCommit(() -> releaseHold(razorpayOrderId));
+        }
+    }
+
+    /**
+     * Drops the hold for a Razorpay order, e.g. on payment.failed.
+     */
+    @Transactional
+    public boolean release(String razorpayOrderId) {
+        reservationRepository.deleteByRazorpayOrderId(razorpayOrderId);
+        boolean released = releaseHold(razorpayOrderId);
+        if (released) {
+            logger.info("Released stock reservation for payment order {}", razorpayOrderId);
+        }
+        return released;
+    }
+
+    @Scheduled(fixedDelay = TICK_MILLIS)
+    public void expireHolds() {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        for (String razorpayOrderId : expiryWheel.advance(now)) {
+            Hold hold = holds.get(razorpayOrderId);
+            // The wheel is never cancelled; skip holds that were already claimed or released
+            if (hold != null && hold.expiresAtMillis() <= now && releaseHold(razorpayOrderId)) {
+                expired++;
+                logger.info("Stock reservation for payment order {} expired", razorpayOrderId);
+            }
+        }
+        if (expired > 0) {
+            reservationRepository.deleteExpired(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Rebuilds the in-memory holds from the table after a restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        reservationRepository.deleteExpired(now);
+        Map<String, List<StockReservation>> byOrder = reservationRepository.findByExpiresAtAfter(now).stream()
+                .collect(Collectors.groupingBy(StockReservation::getRazorpayOrderId));
+
+        synchronized (reserveLock) {
+            byOrder.forEach((razorpayOrderId, rows) -> {
+                List<StockDeduction> lines = inventoryLedger.resolve(rows.stream()
+                        .map(r -> new StockDeduction(r.getItemId(), r.getEggType(), r.getQuantity(),
+                                VariantKey.kilograms(r.getWeightGrams() != null ? r.getWeightGrams() : 0)))
+                        .toList());
+                long expiresAt = toMillis(rows.get(0).getExpiresAt());
+                Integer customerId = rows.get(0).getCustomerId();
+                if (holds.putIfAbsent(razorpayOrderId, new Hold(customerId, lines, expiresAt)) == null) {
+                    addHeld(lines, 1);
+                    expiryWheel.schedule(razorpayOrderId, expiresAt);
+                    // Rows written before holds were per customer: index the one that lasts longest
+                    holdByCustomer.merge(customerId, razorpayOrderId, (current, candidate) ->
+                            holds.get(current).expiresAtMillis() >= expiresAt ? current : candidate);
+                }
+            });
+        }
+        if (!byOrder.isEmpty()) {
+            logger.info("Restored {} stock reservation(s)", byOrder.size());
+        }
+    }
+
+    private boolean releaseHold(String razorpayOrderId) {
+        synchronized (reserveLock) {
+            Hold hold = holds.remove(razorpayOrderId);
+            if (hold == null) {
+                return false;
+            }
+            holdByCustomer.remove(hold.customerId(), razorpayOrderId);
+            addHeld(hold.lines(), -1);
+            return true;
+        }
+    }
+
+    private void addHeld(List<StockDeduction> lines, int sign) {
+        for (StockDeduction line : lines) {
+            held.compute(line.variantKey(), (key, current) -> {
+                int total = (current != null ? current : 0) + sign * line.getQuantity();
+                return total > 0 ? total : null;
+            });
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record Hold(Integer customerId, List<StockDeduction> lines, long expiresAtMillis) {
+
+        Map<Long, Integer> quantities() {
+            return lines.stream().collect(Collectors.toMap(StockDeduction::variantKey,
+                    StockDeduction::getQuantity, Integer::sum));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.bakery.app.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timer wheel: deadlines are hashed into a fixed ring of buckets by tick, so
+ * scheduling is O(1) and each advance only visits the buckets for the elapsed ticks.
+ * Entries are not cancelled; callers re-check their own state when a key fires.
+ */
+public class HashedTimerWheel<K> {
+
+    private final long tickMillis;
+    private final List<List<Entry<K>>> buckets;
+    private long currentTick;
+
+    public HashedTimerWheel(int wheelSize, long tickMillis, long startMillis) {
+        if (wheelSize <= 0 || tickMillis <= 0) {
+            throw new IllegalArgumentException("Wheel size and tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public synchronized void schedule(K key, long deadlineMillis) {
+        // Round up so a key never fires before its deadline
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        buckets.get((int) (tick % buckets.size())).add(new Entry<>(key, tick));
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis} and returns the keys whose deadline has passed.
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<K> expired = new ArrayList<>();
+        if (targetTick <= currentTick) {
+            return expired;
+        }
+        // Entries keep their absolute tick, so after a full revolution every bucket has been seen
+        long steps = Math.min(targetTick - currentTick, buckets.size());
+        for (long tick = currentTick + 1; tick <= currentTick + steps; tick++) {
+            Iterator<Entry<K>> it = buckets.get((int) (tick % buckets.size())).iterator();
+            while (it.hasNext()) {
+                Entry<K> entry = it.next();
+                if (entry.tick <= targetTick) {
+                    expired.add(entry.key);
+                    it.remove();
+                }
+            }
+        }
+        currentTick = targetTick;
+        return expired;
+    }
+
+    private record Entry<K>(K key, long tick) {
+    }
+}
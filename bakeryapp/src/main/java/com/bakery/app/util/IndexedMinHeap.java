@@ -0,0 +1,123 @@
+package com.bakery.app.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary min-heap of long keys by int priority, with a key -> slot index so a key's
+ * priority can be changed or the key removed in O(log n). Not thread-safe.
+ */
+public class IndexedMinHeap {
+
+    private long[] keys = new long[16];
+    private int[] priorities = new int[16];
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(long key) {
+        return positions.containsKey(key);
+    }
+
+    /**
+     * Inserts the key, or moves it if it is already present.
+     */
+    public void put(long key, int priority) {
+        Integer index = positions.get(key);
+        if (index == null) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                priorities = Arrays.copyOf(priorities, size * 2);
+            }
+            place(size, key, priority);
+            siftUp(size++);
+            return;
+        }
+        int old = priorities[index];
+        priorities[index] = priority;
+        if (priority < old) {
+            siftUp(index);
+        } else {
+            siftDown(index);
+        }
+    }
+
+    public boolean remove(long key) {
+        Integer index = positions.remove(key);
+        if (index == null) {
+            return false;
+        }
+        size--;
+        if (index != size) {
+            place(index, keys[size], priorities[size]);
+            siftDown(index);
+            siftUp(index);
+        }
+        return true;
+    }
+
+    /**
+     * Keys ordered by ascending priority. Copies the heap; O(n log n).
+     */
+    public long[] sortedKeys() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> priorities[a] != priorities[b]
+                ? Integer.compare(priorities[a], priorities[b])
+                : Long.compare(keys[a], keys[b]));
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = keys[order[i]];
+        }
+        return sorted;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (priorities[parent] <= priorities[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && priorities[left] < priorities[smallest]) {
+                smallest = left;
+            }
+            if (right < size && priorities[right] < priorities[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        int priority = priorities[a];
+        place(a, keys[b], priorities[b]);
+        place(b, key, priority);
+    }
+
+    private void place(int index, long key, int priority) {
+        keys[index] = key;
+        priorities[index] = priority;
+        positions.put(key, index);
+    }
+}
@@ -0,0 +1,57 @@
+package com.bakery.app.util;
+
+/**
+ * Packs a stock variant (item id, egg type, weight) into one long so inventory lookups are
+ * a single hash probe with no string building or comparison. Weight 0 is the item's shared
+ * stock, used by every weight that has no row of its own.
+ */
+public final class VariantKey {
+    
+    public static final String REGULAR = "REGULAR";
+    public static final String EGGLESS = "EGGLESS";
+    
+    private static final long EGGLESS_BIT = 1L << 31;
+    private static final long WEIGHT_MASK = EGGLESS_BIT - 1;
+    
+    private VariantKey() {
+    }
+    
+    public static long of(int itemId, boolean eggless, int weightGrams) {
+        return ((long) itemId << 32) | (eggless ? EGGLESS_BIT : 0) | (weightGrams & WEIGHT_MASK);
+    }
+    
+    public static long of(Integer itemId, String eggType, Double weightKg) {
+        return of(itemId, isEggless(eggType), grams(weightKg));
+    }
+    
+    public static int itemId(long key) {
+        return (int) (key >>> 32);
+    }
+    
+    public static boolean eggless(long key) {
+        return (key & EGGLESS_BIT) != 0;
+    }
+    
+    public static int weightGrams(long key) {
+        return (int) (key & WEIGHT_MASK);
+    }
+    
+    /**
+     * "EGGLESS" draws from eggless stock; "EGG", null and anything else from regular stock.
+     */
+    public static boolean isEggless(String eggType) {
+        return EGGLESS.equals(eggType);
+    }
+    
+    public static String variant(boolean eggless) {
+        return eggless ? EGGLESS : REGULAR;
+    }
+    
+    public static int grams(Double weightKg) {
+        return weightKg != null ? WeightPriceTable.toGrams(weightKg) : 0;
+    }
+    
+    public static Double kilograms(int weightGrams) {
+        return weightGrams != 0 ? weightGrams / 1000.0 : null;
+    }
+}
@@ -0,0 +1,110 @@
+package com.bakery.app.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+
+/**
+ * Compiled form of {@code Item.pricePerKg}: weights in grams, sorted, with prices in paise.
+ * Parsed once per item version; lookups are a binary search over primitive arrays.
+ */
+public final class WeightPriceTable {
+    
+    public static final WeightPriceTable EMPTY = new WeightPriceTable(null, new int[0], new long[0]);
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private final String source;
+    private final int[] grams;
+    private final long[] paise;
+    
+    private WeightPriceTable(String source, int[] grams, long[] paise) {
+        this.source = source;
+        this.grams = grams;
+        this.paise = paise;
+    }
+    
+    /**
+     * Parses JSON like {"1": 1500, "1.5": 2000} (kg -> rupees). Blank input yields an empty table.
+     *
+     * @throws IllegalArgumentException if the JSON is malformed
+     */
+    public static WeightPriceTable parse(String pricePerKg) {
+        if (pricePerKg == null || pricePerKg.isBlank()) {
+            return EMPTY;
+        }
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(pricePerKg);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Weight pricing data is not valid JSON");
+        }
+        if (root == null || !root.isObject()) {
+            throw new IllegalArgumentException("Weight pricing must be a JSON object of kg to price");
+        }
+        
+        TreeMap<Integer, Long> entries = new TreeMap<>();
+        for (Map.Entry<String, JsonNode> field : root.properties()) {
+            double kg;
+            double rupees;
+            try {
+                kg = Double.parseDouble(field.getKey());
+                rupees = field.getValue().isNumber()
+                        ? field.getValue().asDouble()
+                        : Double.parseDouble(field.getValue().asText());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid weight pricing entry: " + field.getKey());
+            }
+            // The admin form leaves unused weights empty or zero, skip those
+            if (kg > 0 && rupees > 0) {
+                entries.put(toGrams(kg), Math.round(rupees * 100));
+            }
+        }
+        
+        int[] grams = new int[entries.size()];
+        long[] paise = new long[entries.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Long> entry : entries.entrySet()) {
+            grams[i] = entry.getKey();
+            paise[i] = entry.getValue();
+            i++;
+        }
+        return new WeightPriceTable(pricePerKg, grams, paise);
+    }
+    
+    public static int toGrams(double kg) {
+        return (int) Math.round(kg * 1000);
+    }
+    
+    public OptionalLong priceInPaise(int weightInGrams) {
+        int index = Arrays.binarySearch(grams, weightInGrams);
+        return index >= 0 ? OptionalLong.of(paise[index]) : OptionalLong.empty();
+    }
+    
+    public boolean isEmpty() {
+        return grams.length == 0;
+    }
+    
+    public int size() {
+        return grams.length;
+    }
+    
+    public int weightAt(int index) {
+        return grams[index];
+    }
+    
+    /**
+     * True if this table was compiled from the given pricePerKg value.
+     */
+    public boolean isCompiledFrom(String pricePerKg) {
+        if (this == EMPTY) {
+            return pricePerKg == null || pricePerKg.isBlank();
+        }
+        return Objects.equals(source, pricePerKg);
+    }
+}
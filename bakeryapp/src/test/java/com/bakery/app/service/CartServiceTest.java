@@ -0,0 +1,214 @@
+package com.bakery.app.service;
+
+import com.bakery.app.dto.CartItemRequest;
+import com.bakery.app.dto.CartOperation;
+import com.bakery.app.entity.Cart;
+import com.bakery.app.entity.CartItem;
+import com.bakery.app.entity.Customer;
+import com.bakery.app.entity.Item;
+import com.bakery.app.repository.CartItemBatchRepository;
+import com.bakery.app.repository.CartItemRepository;
+import com.bakery.app.repository.CartRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The cart's running totals must always equal the sum of its lines, with the eggless
+ * surcharge kept apart from the subtotal, whichever way the lines change.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CartServiceTest {
+
+	private static final long SURCHARGE = PricingService.EGGLESS_SURCHARGE_PAISE;
+
+	@Mock
+	private CartRepository cartRepository;
+
+	@Mock
+	private CartItemRepository cartItemRepository;
+
+	@Mock
+	private ItemService itemService;
+
+	@Mock
+	private StockReservationService stockReservationService;
+
+	@Mock
+	private CartCache cartCache;
+
+	@Mock
+	private CartItemBatchRepository cartItemBatchRepository;
+
+	@Mock
+	private CouponService couponService;
+
+	@Mock
+	private CatalogCache catalogCache;
+
+	@Mock
+	private EntityManager entityManager;
+
+	private CartService cartService;
+	private Cart cart;
+
+	@BeforeEach
+	void setUp() {
+		cartService = new CartService(cartRepository, cartItemRepository, itemService, new PricingService(catalogCache),
+				stockReservationService, cartCache, cartItemBatchRepository, couponService);
+		ReflectionTestUtils.setField(cartService, "entityManager", entityManager);
+
+		Customer customer = new Customer();
+		customer.setId(1);
+		cart = new Cart();
+		cart.setId(10);
+		cart.setCustomer(customer);
+
+		Item bread = item(1, 120.5, false);
+		Item cake = item(2, 450.0, true);
+		when(cartRepository.findByCustomerIdWithItems(1)).thenReturn(Optional.of(cart));
+		when(itemService.getItemById(1)).thenReturn(bread);
+		when(itemService.getItemById(2)).thenReturn(cake);
+		when(itemService.getItemsByIds(any())).thenReturn(Map.of(1, bread, 2, cake));
+		when(stockReservationService.availableStock(anyInt(), nullable(String.class), nullable(Double.class)))
+				.thenReturn(100);
+
+		AtomicInteger ids = new AtomicInteger(100);
+		when(cartItemRepository.save(any(CartItem.class))).thenAnswer(invocation -> {
+			CartItem line = invocation.getArgument(0);
+			if (line.getId() == null) {
+				line.setId(ids.incrementAndGet());
+			}
+			return line;
+		});
+		when(cartItemRepository.findById(anyInt())).thenAnswer(invocation -> cart.getItems().stream()
+				.filter(line -> line.getId().equals(invocation.getArgument(0)))
+				.findFirst());
+	}
+
+	@Test
+	void addingLinesKeepsTotalsEqualToLines() {
+		cartService.addItemToCart(1, request(1, 2, null));
+		assertTotalsMatchLines();
+
+		cartService.addItemToCart(1, request(2, 1, "EGGLESS"));
+		assertTotalsMatchLines();
+
+		cartService.addItemToCart(1, request(2, 3, "EGG"));
+		cartService.addItemToCart(1, request(2, 2, "EGGLESS"));
+		assertTotalsMatchLines();
+
+		assertEquals(3, cart.getItems().size());
+		assertEquals(3 * SURCHARGE, cart.getSurchargePaise());
+		assertEquals(2 * 12050 + 3 * 45000 + 3 * 45000, cart.getSubtotalPaise());
+	}
+
+	@Test
+	void updatingAndRemovingLinesKeepsTotalsEqualToLines() {
+		cartService.addItemToCart(1, request(1, 2, null));
+		cartService.addItemToCart(1, request(2, 1, "EGGLESS"));
+		cartService.addItemToCart(1, request(2, 1, "EGG"));
+
+		cartService.updateCartItem(lineId(2, "EGGLESS"), 4);
+		assertTotalsMatchLines();
+
+		cartService.updateCartItem(lineId(1, null), 0);
+		assertTotalsMatchLines();
+
+		cartService.removeCartItem(lineId(2, "EGGLESS"));
+		assertTotalsMatchLines();
+
+		assertEquals(0, cart.getSurchargePaise());
+		assertEquals(1, cart.getLineCount());
+	}
+
+	@Test
+	void batchKeepsTotalsEqualToLines() {
+		cartService.addItemToCart(1, request(1, 2, null));
+		cartService.addItemToCart(1, request(2, 1, "EGGLESS"));
+		cartService.addItemToCart(1, request(2, 1, "EGG"));
+
+		cartService.applyBatch(1, List.of(
+				new CartOperation("add", null, 2, 2, "EGGLESS", null),
+				new CartOperation("add", null, 1, 1, "EGGLESS", null),
+				new CartOperation("update", lineId(1, null), null, 5, null, null),
+				new CartOperation("remove", lineId(2, "EGG"), null, null, null, null)));
+
+		assertTotalsMatchLines();
+		assertEquals(4 * SURCHARGE, cart.getSurchargePaise());
+		verify(cartItemBatchRepository).updateTotals(cart);
+	}
+
+	@Test
+	void batchUpdateToZeroRemovesTheLineFromTotals() {
+		cartService.addItemToCart(1, request(2, 3, "EGGLESS"));
+
+		cartService.applyBatch(1, List.of(new CartOperation("update", lineId(2, "EGGLESS"), null, 0, null, null)));
+
+		assertTotalsMatchLines();
+		assertEquals(0, cart.getSubtotalPaise());
+		assertEquals(0, cart.getSurchargePaise());
+	}
+
+	private void assertTotalsMatchLines() {
+		long subtotal = 0;
+		long surcharge = 0;
+		int itemCount = 0;
+		for (CartItem line : cart.getItems()) {
+			long lineSurcharge = "EGGLESS".equals(line.getEggType()) ? SURCHARGE : 0;
+			subtotal += (Math.round(line.getPriceAtAddition() * 100) - lineSurcharge) * line.getQuantity();
+			surcharge += lineSurcharge * line.getQuantity();
+			itemCount += line.getQuantity();
+		}
+		assertEquals(subtotal, cart.getSubtotalPaise(), "subtotal");
+		assertEquals(surcharge, cart.getSurchargePaise(), "surcharge");
+		assertEquals(itemCount, cart.getItemCount(), "item count");
+		assertEquals(cart.getItems().size(), cart.getLineCount(), "line count");
+	}
+
+	private Integer lineId(int itemId, String eggType) {
+		return cart.getItems().stream()
+				.filter(line -> line.getItem().getId() == itemId && Objects.equals(line.getEggType(), eggType))
+				.findFirst()
+				.orElseThrow()
+				.getId();
+	}
+
+	private static CartItemRequest request(int itemId, int quantity, String eggType) {
+		CartItemRequest request = new CartItemRequest();
+		request.setItemId(itemId);
+		request.setQuantity(quantity);
+		request.setEggType(eggType);
+		return request;
+	}
+
+	private static Item item(int id, double price, boolean offersEggless) {
+		Item item = new Item();
+		item.setId(id);
+		item.setName("Item " + id);
+		item.setPrice(price);
+		item.setHasEggOption(offersEggless);
+		item.setAvailable(true);
+		return item;
+	}
+}
@@ -0,0 +1,170 @@
+package com.bakery.app.service;
+
+import com.bakery.app.dto.ItemRequest;
+import com.bakery.app.entity.Cart;
+import com.bakery.app.entity.CartItem;
+import com.bakery.app.entity.Category;
+import com.bakery.app.entity.Customer;
+import com.bakery.app.entity.Item;
+import com.bakery.app.repository.CartItemBatchRepository;
+import com.bakery.app.repository.CartRepository;
+import com.bakery.app.repository.CartSweepRepository;
+import com.bakery.app.repository.CategoryRepository;
+import com.bakery.app.repository.CustomerRepository;
+import com.bakery.app.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The SQL writers of cart totals (repricing, subtracting lines before a delete, the sweeper)
+ * must leave the totals equal to the sum of the cart's lines, including the eggless surcharge
+ * split. They are MySQL statements, so this runs against the configured database, inside a
+ * transaction that is rolled back; run with
+ * {@code mvn test -Dtest=CartTotalsIntegrationTest -Dintegration=true}.
+ */
+@SpringBootTest
+@Transactional
+@EnabledIfSystemProperty(named = "integration", matches = "true")
+class CartTotalsIntegrationTest {
+
+	private static final long SURCHARGE = PricingService.EGGLESS_SURCHARGE_PAISE;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private CartRepository cartRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private ItemRepository itemRepository;
+
+	@Autowired
+	private ItemService itemService;
+
+	@Autowired
+	private CartItemBatchRepository cartItemBatchRepository;
+
+	@Autowired
+	private CartSweepRepository cartSweepRepository;
+
+	@Autowired
+	private CartSweeper cartSweeper;
+
+	private Category category;
+	private Cart cart;
+	private Item cake;
+	private Item bread;
+
+	@BeforeEach
+	void setUp() {
+		long unique = System.nanoTime();
+		category = categoryRepository.save(new Category(null, "Cart totals " + unique, null));
+
+		Customer customer = new Customer();
+		customer.setName("Cart Totals");
+		customer.setEmail("cart-totals-" + unique + "@example.com");
+		customer.setPhone("9999999999");
+		customer.setPassword("not-a-real-hash");
+		customer = customerRepository.save(customer);
+
+		cart = new Cart();
+		cart.setCustomer(customer);
+		cart = cartRepository.saveAndFlush(cart);
+
+		cake = item("Totals cake " + unique, 450.0, true);
+		bread = item("Totals bread " + unique, 120.5, false);
+		cartItemBatchRepository.insertAll(cart.getId(), List.of(
+				new CartItem(null, cart, cake, 2, "EGG", null, 450.0),
+				new CartItem(null, cart, cake, 3, "EGGLESS", null, 480.0),
+				new CartItem(null, cart, bread, 4, null, null, 120.5)));
+		jdbcTemplate.update("UPDATE carts SET subtotal_paise = ?, surcharge_paise = ?, item_count = ?, line_count = ? " +
+				"WHERE id = ?", 2 * 45000 + 3 * 45000 + 4 * 12050, 3 * SURCHARGE, 9, 3, cart.getId());
+		assertTotalsMatchLines();
+	}
+
+	@Test
+	void repricingKeepsTotalsEqualToLines() {
+		ItemRequest request = new ItemRequest();
+		request.setName(cake.getName());
+		request.setPrice(500.0);
+		request.setCategoryId(category.getId());
+		itemService.updateItem(cake.getId(), request);
+
+		assertTotalsMatchLines();
+		assertEquals(2 * 50000 + 3 * 50000 + 4 * 12050, total("subtotal_paise"));
+		assertEquals(3 * SURCHARGE, total("surcharge_paise"));
+	}
+
+	@Test
+	void subtractingLinesKeepsTotalsEqualToLines() {
+		List<Integer> eggless = jdbcTemplate.queryForList(
+				"SELECT id FROM cart_items WHERE cart_id = ? AND egg_type = 'EGGLESS'", Integer.class, cart.getId());
+		cartItemBatchRepository.subtractLines(eggless, SURCHARGE);
+		cartSweepRepository.deleteLines(eggless);
+
+		assertTotalsMatchLines();
+		assertEquals(0, total("surcharge_paise"));
+	}
+
+	@Test
+	void deletingAnItemKeepsTotalsEqualToLines() {
+		itemService.deleteItems(List.of(cake.getId()));
+
+		assertTotalsMatchLines();
+		assertEquals(4 * 12050, total("subtotal_paise"));
+	}
+
+	@Test
+	void sweepingAnIdleCartZeroesItsTotals() {
+		jdbcTemplate.update("UPDATE carts SET updated_at = ? WHERE id = ?",
+				LocalDateTime.now().minusDays(400), cart.getId());
+
+		cartSweeper.sweep();
+
+		assertTotalsMatchLines();
+		assertEquals(0, total("line_count"));
+	}
+
+	private void assertTotalsMatchLines() {
+		Map<String, Object> lines = jdbcTemplate.queryForMap(
+				"SELECT COALESCE(SUM((ROUND(price_at_addition * 100) - " +
+				"CASE WHEN egg_type = 'EGGLESS' THEN ? ELSE 0 END) * quantity), 0) AS subtotal_paise, " +
+				"COALESCE(SUM(CASE WHEN egg_type = 'EGGLESS' THEN ? * quantity ELSE 0 END), 0) AS surcharge_paise, " +
+				"COALESCE(SUM(quantity), 0) AS item_count, COUNT(*) AS line_count " +
+				"FROM cart_items WHERE cart_id = ?", SURCHARGE, SURCHARGE, cart.getId());
+		for (String column : List.of("subtotal_paise", "surcharge_paise", "item_count", "line_count")) {
+			assertEquals(((Number) lines.get(column)).longValue(), total(column), column);
+		}
+	}
+
+	private long total(String column) {
+		return jdbcTemplate.queryForObject("SELECT " + column + " FROM carts WHERE id = ?", Long.class, cart.getId());
+	}
+
+	private Item item(String name, double price, boolean offersEggless) {
+		Item item = new Item();
+		item.setName(name);
+		item.setPrice(price);
+		item.setHasEggOption(offersEggless);
+		item.setCategory(category);
+		item.setAvailable(true);
+		return itemRepository.saveAndFlush(item);
+	}
+}
@@ -0,0 +1,169 @@
+package com.bakery.app.service;
+
+import com.bakery.app.dto.CartItemRequest;
+import com.bakery.app.dto.OrderPlacementRequest;
+import com.bakery.app.entity.Cart;
+import com.bakery.app.entity.Customer;
+import com.bakery.app.entity.Item;
+import com.bakery.app.repository.CartRepository;
+import com.bakery.app.repository.CustomerRepository;
+import com.bakery.app.repository.ItemRepository;
+import com.bakery.app.util.TransactionHooks;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Times {@link OrderService#placeOrder} by cart line count, from the call up to the point
+ * the transaction would commit: order insert, stock deduction, order lines, cart clear and
+ * outbox row, including everything that runs just before commit. Each run seeds a fresh
+ * customer and cart in the same transaction, which is then rolled back, so nothing is kept
+ * and no email is queued. Needs available items with stock; run with
+ * {@code mvn test -Dtest=OrderPersistenceBenchmarkTest -Dbenchmark=true} on each side of a
+ * change to compare.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderPersistenceBenchmarkTest {
+
+	private static final int[] LINE_COUNTS = {1, 5, 15, 30, 60};
+	private static final int WARMUP_RUNS = 20;
+	private static final int MEASURED_RUNS = 100;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private CartService cartService;
+
+	@Autowired
+	private StockReservationService stockReservationService;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private CartRepository cartRepository;
+
+	@Autowired
+	private ItemRepository itemRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${razorpay.key.secret}")
+	private String razorpayKeySecret;
+
+	private final AtomicLong runIds = new AtomicLong(System.currentTimeMillis());
+
+	@Test
+	void placementTimeByLineCount() {
+		List<Item> items = itemRepository.findAll().stream()
+				.filter(item -> Boolean.TRUE.equals(item.getAvailable()) && item.getPrice() != null)
+				.filter(item -> stockReservationService.availableStock(item.getId(), null) > 0)
+				.toList();
+		assertFalse(items.isEmpty(), "The benchmark needs available items with stock");
+
+		System.out.println("lines | avg ms per order");
+		for (int lines : LINE_COUNTS) {
+			if (lines > items.size()) {
+				System.out.printf("%5d | skipped, only %d item(s) in stock%n", lines, items.size());
+				continue;
+			}
+			List<Item> cartItems = items.subList(0, lines);
+			for (int i = 0; i < WARMUP_RUNS; i++) {
+				placeAndRollBack(cartItems);
+			}
+			long nanos = 0;
+			for (int i = 0; i < MEASURED_RUNS; i++) {
+				nanos += placeAndRollBack(cartItems);
+			}
+			System.out.printf("%5d | %.3f%n", lines, nanos / 1_000_000.0 / MEASURED_RUNS);
+		}
+	}
+
+	/**
+	 * Places an order for a fresh cart holding one of each item and rolls it back just before
+	 * commit.
+	 *
+	 * @return nanoseconds from calling placeOrder to the end of the pre-commit work
+	 */
+	private long placeAndRollBack(List<Item> items) {
+		long run = runIds.incrementAndGet();
+		long[] elapsed = new long[1];
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				Customer customer = new Customer();
+				customer.setName("Benchmark");
+				customer.setEmail("order-benchmark-" + run + "@example.com");
+				customer.setPhone("9999999999");
+				customer.setPassword("not-a-real-hash");
+				customer = customerRepository.save(customer);
+				Cart cart = new Cart();
+				cart.setCustomer(customer);
+				cartRepository.saveAndFlush(cart);
+				for (Item item : items) {
+					CartItemRequest line = new CartItemRequest();
+					line.setItemId(item.getId());
+					line.setQuantity(1);
+					cartService.addItemToCart(customer.getId(), line);
+				}
+				entityManager.flush();
+				entityManager.clear();
+
+				long started = System.nanoTime();
+				orderService.placeOrder(customer.getId(), request(run));
+				// Registered last, so it runs after the ledger write and the outbox listener
+				TransactionHooks.beforeCommit(() -> {
+					entityManager.flush();
+					elapsed[0] = System.nanoTime() - started;
+					throw new RolledBack();
+				});
+			});
+		} catch (RolledBack expected) {
+			return elapsed[0];
+		}
+		throw new IllegalStateException("The benchmark transaction committed");
+	}
+
+	private OrderPlacementRequest request(long run) {
+		OrderPlacementRequest request = new OrderPlacementRequest();
+		request.setCustomerName("Benchmark");
+		request.setDeliveryAddress("1 Benchmark Street, Test City");
+		request.setDeliveryPhone("9999999999");
+		request.setPaymentOrderId("order_benchmark_" + run);
+		request.setPaymentId("pay_benchmark_" + run);
+		request.setPaymentSignature(sign(request.getPaymentOrderId() + "|" + request.getPaymentId()));
+		return request;
+	}
+
+	// The signature Razorpay sends back: hex HMAC-SHA256 of "orderId|paymentId"
+	private String sign(String payload) {
+		try {
+			Mac mac = Mac.getInstance("HmacSHA256");
+			mac.init(new SecretKeySpec(razorpayKeySecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+			return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static final class RolledBack extends RuntimeException {
+	}
+}
@@ -0,0 +1,155 @@
+package com.bakery.app.service;
+
+import com.bakery.app.dto.OrderPlacementRequest;
+import com.bakery.app.entity.Cart;
+import com.bakery.app.entity.CartItem;
+import com.bakery.app.entity.Customer;
+import com.bakery.app.entity.Item;
+import com.bakery.app.entity.Order;
+import com.bakery.app.entity.OrderItem;
+import com.bakery.app.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * A placed order is charged exactly what its priced lines add up to, whatever the cart's
+ * running totals say.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OrderServiceTest {
+
+	private static final String SECRET = "test-secret";
+
+	@Mock
+	private OrderRepository orderRepository;
+
+	@Mock
+	private CartService cartService;
+
+	@Mock
+	private CustomerService customerService;
+
+	@Mock
+	private ItemService itemService;
+
+	@Mock
+	private OrderHistoryService orderHistoryService;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@Mock
+	private StockReservationService stockReservationService;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@Mock
+	private CatalogCache catalogCache;
+
+	private OrderService orderService;
+	private Cart cart;
+
+	@BeforeEach
+	void setUp() {
+		orderService = new OrderService(orderRepository, cartService, customerService, itemService,
+				orderHistoryService, eventPublisher, new PricingService(catalogCache), stockReservationService,
+				transactionTemplate, 100);
+		ReflectionTestUtils.setField(orderService, "razorpayKeySecret", SECRET);
+
+		Customer customer = new Customer();
+		customer.setId(1);
+		cart = new Cart();
+		cart.setId(10);
+		cart.setCustomer(customer);
+
+		when(customerService.getCustomerById(1)).thenReturn(customer);
+		when(cartService.getCartForCheckout(1)).thenReturn(cart);
+		when(orderRepository.saveAndFlush(any(Order.class))).thenAnswer(invocation -> {
+			Order order = invocation.getArgument(0);
+			order.setId(100);
+			return order;
+		});
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+	}
+
+	@Test
+	void orderTotalEqualsTheSumOfItsLines() {
+		Item bread = item(1, 120.5, false);
+		Item cake = item(2, 450.0, true);
+		cart.getItems().add(new CartItem(1, cart, bread, 2, null, null, 120.5));
+		cart.getItems().add(new CartItem(2, cart, cake, 3, "EGGLESS", null, 480.0));
+		cart.getItems().add(new CartItem(3, cart, cake, 1, "EGG", null, 450.0));
+		// Running totals that drifted from the lines, e.g. a reprice that has not reached the cart yet
+		cart.setSubtotalPaise(1000L);
+		cart.setSurchargePaise(0L);
+		cart.setLineCount(3);
+		cart.setItemCount(6);
+
+		Order order = orderService.placeOrder(1, request());
+
+		long linesPaise = 0;
+		for (OrderItem line : order.getOrderItems()) {
+			assertSame(order, line.getOrder());
+			linesPaise += Math.round(line.getPrice() * 100) * line.getQuantity();
+		}
+		assertEquals(3, order.getOrderItems().size());
+		assertEquals(linesPaise / 100.0, order.getTotalAmount());
+		assertEquals((2 * 12050 + 3 * (45000 + PricingService.EGGLESS_SURCHARGE_PAISE) + 45000) / 100.0,
+				order.getTotalAmount());
+	}
+
+	private Item item(int id, double price, boolean offersEggless) {
+		Item item = new Item();
+		item.setId(id);
+		item.setName("Item " + id);
+		item.setPrice(price);
+		item.setHasEggOption(offersEggless);
+		item.setAvailable(true);
+		when(itemService.getItemById(id)).thenReturn(item);
+		return item;
+	}
+
+	private static OrderPlacementRequest request() {
+		OrderPlacementRequest request = new OrderPlacementRequest();
+		request.setCustomerName("Test Customer");
+		request.setDeliveryAddress("1 Test Street, Test City");
+		request.setDeliveryPhone("9999999999");
+		request.setPaymentOrderId("order_test");
+		request.setPaymentId("pay_test");
+		request.setPaymentSignature(sign(request.getPaymentOrderId() + "|" + request.getPaymentId()));
+		return request;
+	}
+
+	// The signature Razorpay sends back: hex HMAC-SHA256 of "orderId|paymentId"
+	private static String sign(String payload) {
+		try {
+			Mac mac = Mac.getInstance("HmacSHA256");
+			mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+			return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
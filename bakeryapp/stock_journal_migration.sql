@@ -0,0 +1,24 @@
+-- Migration script to create the stock journal tables
+-- Every stock change is appended to stock_movements by InventoryLedger; stock_snapshots
+-- holds periodic per-variant snapshots so historical lookups only sum recent movements
+
+CREATE TABLE IF NOT EXISTS stock_movements (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    item_id INT NOT NULL,
+    variant VARCHAR(10) NOT NULL,
+    delta INT NOT NULL,
+    reason VARCHAR(30) NOT NULL,
+    order_id INT,
+    created_at DATETIME(6) NOT NULL,
+    INDEX idx_stock_movements_item (item_id, variant, created_at)
+);
+
+CREATE TABLE IF NOT EXISTS stock_snapshots (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    item_id INT NOT NULL,
+    variant VARCHAR(10) NOT NULL,
+    stock INT NOT NULL,
+    last_movement_id BIGINT NOT NULL,
+    taken_at DATETIME(6) NOT NULL,
+    INDEX idx_stock_snapshots_item (item_id, variant, taken_at)
+);
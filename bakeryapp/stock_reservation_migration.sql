@@ -0,0 +1,14 @@
+-- Migration script to create the stock reservation table
+-- Holds cart stock while a Razorpay payment is in progress (see StockReservationService)
+
+CREATE TABLE IF NOT EXISTS stock_reservations (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    razorpay_order_id VARCHAR(64) NOT NULL,
+    customer_id INT NOT NULL,
+    item_id INT NOT NULL,
+    egg_type VARCHAR(255),
+    quantity INT NOT NULL,
+    expires_at DATETIME NOT NULL,
+    INDEX idx_stock_reservations_order (razorpay_order_id),
+    INDEX idx_stock_reservations_expires (expires_at)
+);
@@ -0,0 +1,31 @@
+-- Migration script to move stock into a per-variant table
+-- One row per (item, egg type, weight); weight_grams = 0 is the item's shared stock used
+-- by every weight without a row of its own. items.stock / items.eggless_stock remain as a
+-- copy of the shared rows, kept in sync by InventoryLedger.
+
+CREATE TABLE IF NOT EXISTS variant_stock (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    item_id INT NOT NULL,
+    egg_type VARCHAR(10) NOT NULL,
+    weight_grams INT NOT NULL DEFAULT 0,
+    stock INT NOT NULL DEFAULT 0,
+    UNIQUE KEY uk_variant_stock (item_id, egg_type, weight_grams)
+);
+
+-- Seed the shared rows from the existing columns (the application also does this on startup)
+INSERT IGNORE INTO variant_stock (item_id, egg_type, weight_grams, stock)
+SELECT id, 'REGULAR', 0, stock FROM items;
+
+INSERT IGNORE INTO variant_stock (item_id, egg_type, weight_grams, stock)
+SELECT id, 'EGGLESS', 0, COALESCE(eggless_stock, 0) FROM items;
+
+-- Journal and reservations now record the weight a change applied to
+ALTER TABLE stock_movements ADD COLUMN weight_grams INT NOT NULL DEFAULT 0 AFTER variant;
+ALTER TABLE stock_movements DROP INDEX idx_stock_movements_item,
+    ADD INDEX idx_stock_movements_item (item_id, variant, weight_grams, created_at);
+
+ALTER TABLE stock_snapshots ADD COLUMN weight_grams INT NOT NULL DEFAULT 0 AFTER variant;
+ALTER TABLE stock_snapshots DROP INDEX idx_stock_snapshots_item,
+    ADD INDEX idx_stock_snapshots_item (item_id, variant, weight_grams, taken_at);
+
+ALTER TABLE stock_reservations ADD COLUMN weight_grams INT AFTER egg_type;